@@ -0,0 +1,88 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.Bank;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.engine.DirectAccountEngine;
+import pl.edu.agh.iet.katabank.engine.ShardedAccountEngine;
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bank transfers between randomly chosen accounts of one customer, applied by the direct engine
+ * or by single-writer shards. Compare the engines across
+ * {@code -PjmhThreads=1}, {@code 4}, {@code 16} and {@code 64}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountEngineBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"direct", "sharded"})
+    public String engine;
+
+    @Param({"64", "4096"})
+    public int accountCount;
+
+    private ShardedAccountEngine shardedEngine;
+    private Bank bank;
+    private Customer customer;
+    private Account[] accounts;
+
+    @Setup
+    public void setUp() {
+        ConcurrentBankProductsRepository repository = new ConcurrentBankProductsRepository();
+        if ("sharded".equals(engine)) {
+            shardedEngine = new ShardedAccountEngine();
+            bank = new Bank(repository, shardedEngine);
+        } else {
+            bank = new Bank(repository, DirectAccountEngine.INSTANCE);
+        }
+        customer = new Customer();
+        accounts = new Account[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = bank.openAccount(customer);
+            accounts[i].setBalance(BankFixture.INITIAL_BALANCE);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (shardedEngine != null) {
+            shardedEngine.close();
+        }
+    }
+
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accountCount);
+        int to = (from + 1 + random.nextInt(accountCount - 1)) % accountCount;
+        bank.transfer(customer, accounts[from], accounts[to], AMOUNT);
+    }
+
+    @Benchmark
+    public void deposit() {
+        bank.deposit(customer, accounts[ThreadLocalRandom.current().nextInt(accountCount)], AMOUNT);
+    }
+}
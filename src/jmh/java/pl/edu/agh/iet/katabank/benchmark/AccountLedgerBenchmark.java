@@ -0,0 +1,97 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.AccountLedger;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance-at-instant queries on an account with a long history, one entry per minute, and the
+ * cost of recording a deposit. See {@link LedgerFootprint} for the memory per entry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountLedgerBenchmark {
+
+    static final Instant HISTORY_START = Instant.parse("2018-01-01T00:00:00Z");
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"10000", "100000"})
+    public int entryCount;
+
+    private Account account;
+    private AccountLedger ledger;
+
+    @Setup
+    public void setUp() {
+        account = fillHistory(newAccount(new Customer()), entryCount);
+        ledger = account.getLedger();
+    }
+
+    @Benchmark
+    public BigDecimal balanceAt() {
+        return ledger.getBalanceAt(HISTORY_START.plusSeconds(60L * ThreadLocalRandom.current().nextInt(entryCount)));
+    }
+
+    @Benchmark
+    public void deposit() {
+        account.deposit(AMOUNT);
+    }
+
+    /**
+     * Account whose ledger clock starts at {@link #HISTORY_START} and moves a minute ahead
+     * on every reading, so each entry is stamped a minute after the previous one.
+     */
+    static Account newAccount(Customer owner) {
+        return new Account(owner, new MinuteClock());
+    }
+
+    static Account fillHistory(Account account, int entryCount) {
+        for (int i = 0; i < entryCount; i++) {
+            account.deposit(AMOUNT);
+        }
+        return account;
+    }
+
+    private static final class MinuteClock extends Clock {
+
+        private long minutes;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return HISTORY_START.plusSeconds(60L * minutes++);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import pl.edu.agh.iet.katabank.AsyncBank;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives an {@link AsyncBank} with a mix of deposits, withdrawals and transfers between random
+ * accounts, keeping a fixed number of operations in flight, and reports throughput and latency
+ * percentiles. Arguments: account count, operation count, operations in flight. Run with
+ * {@code gradle asyncBankLoad -PloadArgs="10000 1000000 1000"}.
+ */
+public final class AsyncBankLoadGenerator {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.25");
+
+    private AsyncBankLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int operationCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int inFlight = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        BankFixture fixture = new BankFixture(new ConcurrentBankProductsRepository(), accountCount, 1);
+        long[] latencies = new long[operationCount];
+        AtomicLong failures = new AtomicLong();
+        Semaphore permits = new Semaphore(inFlight);
+
+        try (AsyncBank asyncBank = new AsyncBank(fixture.bank)) {
+            long started = System.nanoTime();
+            for (int i = 0; i < operationCount; i++) {
+                permits.acquire();
+                int operation = i;
+                long submitted = System.nanoTime();
+                submit(asyncBank, fixture).whenComplete((result, error) -> {
+                    latencies[operation] = System.nanoTime() - submitted;
+                    if (error != null) {
+                        failures.incrementAndGet();
+                    }
+                    permits.release();
+                });
+            }
+            permits.acquire(inFlight);
+            long elapsed = System.nanoTime() - started;
+
+            Arrays.sort(latencies);
+            System.out.printf("%d operations on %d accounts, %d in flight, %d failed%n",
+                    operationCount, accountCount, inFlight, failures.get());
+            System.out.printf("throughput: %.0f ops/s%n", operationCount / (elapsed / 1e9));
+            System.out.printf("latency p50: %d us, p99: %d us, p99.9: %d us, max: %d us%n",
+                    micros(percentile(latencies, 0.50)), micros(percentile(latencies, 0.99)),
+                    micros(percentile(latencies, 0.999)), micros(latencies[latencies.length - 1]));
+        }
+    }
+
+    private static CompletableFuture<Void> submit(AsyncBank asyncBank, BankFixture fixture) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Account account = fixture.accounts.get(random.nextInt(fixture.accounts.size()));
+        switch (random.nextInt(3)) {
+            case 0:
+                return asyncBank.deposit(account.getOwner(), account, AMOUNT);
+            case 1:
+                return asyncBank.withdraw(account.getOwner(), account, AMOUNT);
+            default:
+                Account targetAccount = fixture.accounts.get(random.nextInt(fixture.accounts.size()));
+                return asyncBank.transfer(account.getOwner(), account, targetAccount, AMOUNT);
+        }
+    }
+
+    private static long percentile(long[] sortedLatencies, double percentile) {
+        return sortedLatencies[(int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile * sortedLatencies.length) - 1)];
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,37 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import pl.edu.agh.iet.katabank.Bank;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bank populated with a given number of customers, each owning the same number of accounts.
+ */
+final class BankFixture {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1000000000);
+
+    final BankProductsRepository repository;
+    final Bank bank;
+    final List<Customer> customers = new ArrayList<>();
+    final List<Account> accounts = new ArrayList<>();
+
+    BankFixture(BankProductsRepository repository, int customerCount, int accountsPerCustomer) {
+        this.repository = repository;
+        this.bank = new Bank(repository);
+        for (int i = 0; i < customerCount; i++) {
+            Customer customer = new Customer();
+            customers.add(customer);
+            for (int j = 0; j < accountsPerCustomer; j++) {
+                Account account = bank.openAccount(customer);
+                account.setBalance(INITIAL_BALANCE);
+                accounts.add(account);
+            }
+        }
+    }
+}
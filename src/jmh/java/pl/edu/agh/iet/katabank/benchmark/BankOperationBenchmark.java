@@ -0,0 +1,96 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.operation.Operation;
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bank operations including the ownership check, called one at a time and as a batch
+ * of {@link #BATCH_SIZE} operations of one customer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BankOperationBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"100", "1000"})
+    public int customerCount;
+
+    @Param({"1", "100", "1000"})
+    public int accountsPerCustomer;
+
+    private BankFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = new BankFixture(new ConcurrentBankProductsRepository(), customerCount, accountsPerCustomer);
+    }
+
+    @Benchmark
+    public void deposit() {
+        int index = ThreadLocalRandom.current().nextInt(fixture.accounts.size());
+        Account account = fixture.accounts.get(index);
+        fixture.bank.deposit(account.getOwner(), account, AMOUNT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void singleCalls() {
+        int customerIndex = ThreadLocalRandom.current().nextInt(customerCount);
+        Customer customer = fixture.customers.get(customerIndex);
+        List<Account> accounts = accountsOf(customerIndex);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Account account = accounts.get(i % accounts.size());
+            Account target = accounts.get((i + 1) % accounts.size());
+            fixture.bank.deposit(customer, account, AMOUNT);
+            fixture.bank.transfer(customer, account, target, AMOUNT);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batch(Blackhole blackhole) {
+        int customerIndex = ThreadLocalRandom.current().nextInt(customerCount);
+        Customer customer = fixture.customers.get(customerIndex);
+        List<Account> accounts = accountsOf(customerIndex);
+        List<Operation> operations = new ArrayList<>(2 * BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Account account = accounts.get(i % accounts.size());
+            Account target = accounts.get((i + 1) % accounts.size());
+            operations.add(Operation.deposit(customer, account, AMOUNT));
+            operations.add(Operation.transfer(customer, account, target, AMOUNT));
+        }
+        blackhole.consume(fixture.bank.execute(operations));
+    }
+
+    private List<Account> accountsOf(int customerIndex) {
+        int first = customerIndex * accountsPerCustomer;
+        return fixture.accounts.subList(first, first + accountsPerCustomer);
+    }
+}
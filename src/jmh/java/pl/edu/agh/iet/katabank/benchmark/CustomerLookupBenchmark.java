@@ -0,0 +1,87 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy;
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository;
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository;
+import pl.edu.agh.iet.katabank.repository.InMemoryBankProductsRepository;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS;
+
+/**
+ * Customer lookups through the bank, of customers with four accounts and one deposit on each, the bulk of the traffic, including customers without any
+ * products. Per-thread throughput should stay flat across {@code -PjmhThreads=1}, {@code 2},
+ * {@code 4} and {@code 8} when reads scale with cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerLookupBenchmark {
+
+    private static final int CUSTOMER_COUNT = 10000;
+    private static final int ACCOUNTS_PER_CUSTOMER = 4;
+
+    @Param({"inMemory", "concurrent"})
+    public String repositoryType;
+
+    private BankFixture fixture;
+    private Customer[] unknownCustomers;
+
+    @Setup
+    public void setUp() {
+        BankProductsRepository repository = "inMemory".equals(repositoryType)
+                ? new InMemoryBankProductsRepository() : new ConcurrentBankProductsRepository();
+        fixture = new BankFixture(repository, CUSTOMER_COUNT, ACCOUNTS_PER_CUSTOMER);
+        InterestPolicy interestPolicy = new MonthlyInterestPolicy(BigDecimal.TEN);
+        DepositDurationDetails durationDetails = new DepositDurationDetails(12, MONTHS);
+        for (Account account : fixture.accounts) {
+            fixture.bank.openDeposit(account.getOwner(), account, BigDecimal.ONE, durationDetails, interestPolicy);
+        }
+        unknownCustomers = new Customer[CUSTOMER_COUNT];
+        for (int i = 0; i < CUSTOMER_COUNT; i++) {
+            unknownCustomers[i] = new Customer();
+        }
+    }
+
+    @Benchmark
+    public Set<Account> getAccountsForCustomer() {
+        return fixture.bank.getAccountsForCustomer(fixture.customers.get(randomIndex()));
+    }
+
+    @Benchmark
+    public Set<Deposit> getDepositsForCustomer() {
+        return fixture.bank.getDepositsForCustomer(fixture.customers.get(randomIndex()));
+    }
+
+    @Benchmark
+    public Set<Account> getAccountsForUnknownCustomer() {
+        return fixture.bank.getAccountsForCustomer(unknownCustomers[randomIndex()]);
+    }
+
+    private static int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(CUSTOMER_COUNT);
+    }
+}
@@ -0,0 +1,77 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.CalculationCache;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DailyInterestPolicyWithInsurance;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.DAYS;
+
+/**
+ * Closing a deposit with many daily top-ups. With a {@code cold} calculation cache every
+ * multiplier is recalculated, with a {@code warm} one they come from the cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DepositCloseBenchmark {
+
+    private static final LocalDate OPEN_DATE = LocalDate.of(2018, 1, 1);
+
+    @Param({"1", "100", "10000"})
+    public int paymentsPerDeposit;
+
+    @Param({"monthly", "daily"})
+    public String policyType;
+
+    @Param({"warm", "cold"})
+    public String cache;
+
+    private Deposit deposit;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        if ("cold".equals(cache)) {
+            CalculationCache.invalidateAll();
+        }
+        InterestPolicy interestPolicy = "monthly".equals(policyType)
+                ? new MonthlyInterestPolicy(BigDecimal.TEN)
+                : new DailyInterestPolicyWithInsurance(BigDecimal.TEN, BigDecimal.ONE);
+        DepositDurationDetails durationDetails = new DepositDurationDetails(paymentsPerDeposit + 1, DAYS);
+        deposit = new Deposit(new Account(new Customer()), new DepositPayment(BigDecimal.TEN, OPEN_DATE),
+                durationDetails, interestPolicy);
+        for (int i = 1; i < paymentsPerDeposit; i++) {
+            deposit.addPayment(new DepositPayment(BigDecimal.TEN, OPEN_DATE.plusDays(i)), interestPolicy);
+        }
+    }
+
+    @Benchmark
+    public Deposit closeDeposit() {
+        deposit.closeDeposit(deposit.getCloseDate());
+        return deposit;
+    }
+}
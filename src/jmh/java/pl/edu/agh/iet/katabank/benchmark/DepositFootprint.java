@@ -0,0 +1,59 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS;
+
+/**
+ * Prints the retained heap per deposit payment, measured as the difference in used heap before
+ * and after building a book of deposits with daily top-ups. Run with {@code gradle depositFootprint}.
+ */
+public final class DepositFootprint {
+
+    private static final int DEPOSIT_COUNT = 1000;
+    private static final int PAYMENTS_PER_DEPOSIT = 1000;
+
+    private DepositFootprint() {
+    }
+
+    public static void main(String[] args) {
+        LocalDate openDate = LocalDate.of(2018, 1, 1);
+        InterestPolicy interestPolicy = new MonthlyInterestPolicy(BigDecimal.TEN);
+        DepositDurationDetails durationDetails = new DepositDurationDetails(36, MONTHS);
+        Account account = new Account(new Customer());
+
+        long usedBefore = usedHeap();
+        List<Deposit> deposits = new ArrayList<>(DEPOSIT_COUNT);
+        for (int i = 0; i < DEPOSIT_COUNT; i++) {
+            Deposit deposit = new Deposit(account, new DepositPayment(BigDecimal.valueOf(1234, 2), openDate), durationDetails, interestPolicy);
+            for (int j = 1; j < PAYMENTS_PER_DEPOSIT; j++) {
+                deposit.addPayment(new DepositPayment(BigDecimal.valueOf(1234 + j, 2), openDate.plusDays(j)), interestPolicy);
+            }
+            deposits.add(deposit);
+        }
+        long usedAfter = usedHeap();
+
+        long payments = (long) DEPOSIT_COUNT * PAYMENTS_PER_DEPOSIT;
+        System.out.printf("%d deposits, %d payments: %.1f bytes per payment%n",
+                deposits.size(), payments, (double) (usedAfter - usedBefore) / payments);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
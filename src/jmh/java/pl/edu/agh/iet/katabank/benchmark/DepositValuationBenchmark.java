@@ -0,0 +1,84 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DailyInterestPolicyWithInsurance;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy;
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository;
+import pl.edu.agh.iet.katabank.valuation.DepositValuationEngine;
+import pl.edu.agh.iet.katabank.valuation.ValuationReport;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS;
+
+/**
+ * One valuation of a whole deposit book with five payments per deposit. The book for
+ * 50M payments needs a large heap, e.g. {@code -p paymentCount=50000000 -jvmArgs -Xmx8g}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DepositValuationBenchmark {
+
+    private static final int PAYMENTS_PER_DEPOSIT = 5;
+    private static final LocalDate FIRST_OPEN_DATE = LocalDate.of(2018, 1, 1);
+
+    @Param({"1000000", "10000000"})
+    public int paymentCount;
+
+    private DepositValuationEngine engine;
+    private LocalDate valuationDate;
+
+    @Setup
+    public void setUp() {
+        ConcurrentBankProductsRepository repository = new ConcurrentBankProductsRepository();
+        InterestPolicy[] policies = {
+                new MonthlyInterestPolicy(new BigDecimal("4.5")),
+                new MonthlyInterestPolicy(new BigDecimal("6")),
+                new DailyInterestPolicyWithInsurance(new BigDecimal("5"), BigDecimal.ONE)
+        };
+        Random random = new Random(42);
+        for (int i = 0; i < paymentCount / PAYMENTS_PER_DEPOSIT; i++) {
+            LocalDate openDate = FIRST_OPEN_DATE.plusDays(random.nextInt(730));
+            Deposit deposit = new Deposit(new Account(new Customer()), payment(random, openDate),
+                    new DepositDurationDetails(3 + random.nextInt(34), MONTHS), policies[i % policies.length]);
+            for (int j = 1; j < PAYMENTS_PER_DEPOSIT; j++) {
+                deposit.addPayment(payment(random, openDate.plusDays(7 * j)), policies[(i + j) % policies.length]);
+            }
+            repository.addDeposit(deposit);
+        }
+        engine = new DepositValuationEngine(repository);
+        valuationDate = FIRST_OPEN_DATE.plusYears(2);
+    }
+
+    @Benchmark
+    public ValuationReport valuate() {
+        return engine.valuate(valuationDate);
+    }
+
+    private static DepositPayment payment(Random random, LocalDate date) {
+        return new DepositPayment(BigDecimal.valueOf(100 + random.nextInt(1000000), 2), date);
+    }
+}
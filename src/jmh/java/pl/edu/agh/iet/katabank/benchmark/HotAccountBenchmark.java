@@ -0,0 +1,67 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 64 threads crediting one merchant account, with one operation in {@code debitEvery} being a
+ * withdrawal, on a plain CAS balance or on a hot account's striped sub-balances. Automatic
+ * promotion is turned off so the plain account stays plain. The account keeps no ledger, whose
+ * appends would otherwise be measured as well and fill the heap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dkatabank.hotAccount.promotionThreshold=0")
+@Threads(64)
+@State(Scope.Benchmark)
+public class HotAccountBenchmark {
+
+    private static final Money CREDIT = Money.ofMinorUnits(100);
+    private static final Money DEBIT = Money.ofMinorUnits(1);
+
+    @Param({"plain", "hot"})
+    public String mode;
+
+    @Param({"1000000", "16"})
+    public int debitEvery;
+
+    private Account account;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        account = new Account(new Customer(), 1, new AtomicLong()) {
+        };
+        if ("hot".equals(mode)) {
+            account.promoteToHotMode();
+        }
+    }
+
+    @Benchmark
+    public void operation() {
+        if (ThreadLocalRandom.current().nextInt(debitEvery) == 0) {
+            account.withdraw(DEBIT);
+        } else {
+            account.deposit(CREDIT);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.IdempotencyCache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of the idempotency check alone: replays of remembered keys and first executions of new
+ * keys, which also evict old ones once the cache is full. Run with {@code -PjmhThreads=N} to
+ * measure under contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdempotencyBenchmark {
+
+    private static final int REMEMBERED_KEYS = 100000;
+
+    private final AtomicLong keySequence = new AtomicLong();
+    private IdempotencyCache cache;
+    private String[] rememberedKeys;
+
+    @Setup
+    public void setUp() {
+        cache = new IdempotencyCache(1, TimeUnit.HOURS, 2 * REMEMBERED_KEYS);
+        rememberedKeys = new String[REMEMBERED_KEYS];
+        for (int i = 0; i < REMEMBERED_KEYS; i++) {
+            rememberedKeys[i] = "remembered-" + i;
+            cache.execute(rememberedKeys[i], "deposit", () -> null);
+        }
+    }
+
+    @Benchmark
+    public Object replay() {
+        return cache.execute(rememberedKeys[ThreadLocalRandom.current().nextInt(REMEMBERED_KEYS)], "deposit", () -> null);
+    }
+
+    @Benchmark
+    public Object firstExecution() {
+        return cache.execute("new-" + keySequence.incrementAndGet(), "deposit", () -> null);
+    }
+}
@@ -0,0 +1,73 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment;
+import pl.edu.agh.iet.katabank.id.Identifiers;
+import pl.edu.agh.iet.katabank.id.SnowflakeIdGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation rate of identified objects with the default generator and with ids drawn from
+ * {@link UUID#randomUUID()}, as they were before. Run with {@code -PjmhThreads} to see contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdentifierBenchmark {
+
+    private static final LocalDate PAYMENT_DATE = LocalDate.of(2018, 1, 1);
+
+    @Param({"snowflake", "randomUUID"})
+    public String generator;
+
+    private final Customer customer = new Customer();
+
+    @Setup
+    public void setUp() {
+        if ("randomUUID".equals(generator)) {
+            Identifiers.setGenerator(() -> UUID.randomUUID().getLeastSignificantBits());
+        } else {
+            Identifiers.setGenerator(new SnowflakeIdGenerator());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Identifiers.setGenerator(new SnowflakeIdGenerator());
+    }
+
+    @Benchmark
+    public Customer newCustomer() {
+        return new Customer();
+    }
+
+    @Benchmark
+    public Account newAccount() {
+        return new Account(customer);
+    }
+
+    @Benchmark
+    public DepositPayment newDepositPayment() {
+        return new DepositPayment(BigDecimal.TEN, PAYMENT_DATE);
+    }
+}
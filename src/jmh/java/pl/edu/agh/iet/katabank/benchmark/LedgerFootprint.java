@@ -0,0 +1,46 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints the retained heap per ledger entry, measured as the difference in used heap before and
+ * after recording the history of a set of accounts. Run with {@code gradle ledgerFootprint}.
+ */
+public final class LedgerFootprint {
+
+    private static final int ACCOUNT_COUNT = 100;
+    private static final int ENTRIES_PER_ACCOUNT = 10000;
+
+    private LedgerFootprint() {
+    }
+
+    public static void main(String[] args) {
+        Customer customer = new Customer();
+        List<Account> accounts = new ArrayList<>(ACCOUNT_COUNT);
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accounts.add(AccountLedgerBenchmark.newAccount(customer));
+        }
+
+        long usedBefore = usedHeap();
+        for (Account account : accounts) {
+            AccountLedgerBenchmark.fillHistory(account, ENTRIES_PER_ACCOUNT);
+        }
+        long usedAfter = usedHeap();
+
+        long entries = (long) ACCOUNT_COUNT * ENTRIES_PER_ACCOUNT;
+        System.out.printf("%d accounts, %d ledger entries: %.1f bytes per entry%n",
+                accounts.size(), entries, (double) (usedAfter - usedBefore) / entries);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
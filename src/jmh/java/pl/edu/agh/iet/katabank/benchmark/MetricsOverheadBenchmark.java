@@ -0,0 +1,67 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.metrics.BankMetrics;
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the built-in metrics on the hottest bank operations; with metrics disabled the
+ * results should match a build without instrumentation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"false", "true"})
+    public boolean metricsEnabled;
+
+    private BankFixture fixture;
+
+    @Setup
+    public void setUp() {
+        BankMetrics.setEnabled(metricsEnabled);
+        fixture = new BankFixture(new ConcurrentBankProductsRepository(), 1000, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BankMetrics.setEnabled(false);
+        BankMetrics.reset();
+    }
+
+    @Benchmark
+    public void deposit() {
+        Account account = fixture.accounts.get(ThreadLocalRandom.current().nextInt(fixture.accounts.size()));
+        fixture.bank.deposit(account.getOwner(), account, AMOUNT);
+    }
+
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Account account = fixture.accounts.get(random.nextInt(fixture.accounts.size()));
+        Account targetAccount = fixture.accounts.get(random.nextInt(fixture.accounts.size()));
+        fixture.bank.transfer(account.getOwner(), account, targetAccount, AMOUNT);
+    }
+}
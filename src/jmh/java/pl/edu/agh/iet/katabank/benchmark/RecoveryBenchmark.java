@@ -0,0 +1,103 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.Bank;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.journal.JournalCompactor;
+import pl.edu.agh.iet.katabank.journal.JournalReplayer;
+import pl.edu.agh.iet.katabank.journal.MappedSegmentJournal;
+import pl.edu.agh.iet.katabank.journal.SnapshotStore;
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository;
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cold start of a bank from its journal: full replay of every segment against loading the latest
+ * snapshot and replaying only the segments written after it.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final int OPERATIONS_PER_ACCOUNT = 10;
+
+    @Param({"10000", "100000"})
+    public int accountCount;
+
+    private Path directory;
+    private Path journalDirectory;
+    private SnapshotStore snapshotStore;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("katabank-recovery");
+        journalDirectory = directory.resolve("journal");
+        snapshotStore = new SnapshotStore(directory.resolve("snapshots"));
+        Bank bank = new Bank(new ConcurrentBankProductsRepository());
+        try (MappedSegmentJournal journal = new MappedSegmentJournal(journalDirectory, SEGMENT_SIZE, false)) {
+            bank.addEventListener(journal);
+            for (int i = 0; i < accountCount; i++) {
+                Customer customer = new Customer();
+                Account account = bank.openAccount(customer);
+                for (int j = 0; j < OPERATIONS_PER_ACCOUNT; j++) {
+                    bank.deposit(customer, account, BigDecimal.TEN);
+                }
+            }
+        }
+        try (JournalCompactor compactor = new JournalCompactor(journalDirectory, snapshotStore)) {
+            compactor.compact();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public BankProductsRepository fullReplay() {
+        BankProductsRepository repository = new ConcurrentBankProductsRepository();
+        JournalReplayer.recover(journalDirectory, repository);
+        return repository;
+    }
+
+    @Benchmark
+    public BankProductsRepository snapshotAndTail() {
+        BankProductsRepository repository = new ConcurrentBankProductsRepository();
+        JournalReplayer.recover(journalDirectory, snapshotStore, repository);
+        return repository;
+    }
+}
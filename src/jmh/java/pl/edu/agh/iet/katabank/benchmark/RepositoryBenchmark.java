@@ -0,0 +1,95 @@
+package pl.edu.agh.iet.katabank.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy;
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository;
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository;
+import pl.edu.agh.iet.katabank.repository.InMemoryBankProductsRepository;
+import pl.edu.agh.iet.katabank.repository.OffHeapBankProductsRepository;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS;
+
+/**
+ * Repository lookups for customers owning many accounts with one deposit each.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    @Param({"inMemory", "concurrent", "offHeap"})
+    public String repositoryType;
+
+    @Param({"100", "1000"})
+    public int customerCount;
+
+    @Param({"1", "100", "1000"})
+    public int accountsPerCustomer;
+
+    private BankFixture fixture;
+
+    @Setup
+    public void setUp() {
+        BankProductsRepository repository = createRepository();
+        fixture = new BankFixture(repository, customerCount, accountsPerCustomer);
+        InterestPolicy interestPolicy = new MonthlyInterestPolicy(BigDecimal.TEN);
+        DepositDurationDetails durationDetails = new DepositDurationDetails(12, MONTHS);
+        for (Account account : fixture.accounts) {
+            fixture.bank.openDeposit(account.getOwner(), account, BigDecimal.ONE, durationDetails, interestPolicy);
+        }
+    }
+
+    @Benchmark
+    public Set<Deposit> findDepositsForCustomer() {
+        return fixture.repository.findDepositsForCustomer(randomCustomer());
+    }
+
+    @Benchmark
+    public Set<Account> findAccountsForCustomer() {
+        return fixture.repository.findAccountsForCustomer(randomCustomer());
+    }
+
+    @Benchmark
+    public boolean isAccountOwnedBy() {
+        Account account = fixture.accounts.get(ThreadLocalRandom.current().nextInt(fixture.accounts.size()));
+        return fixture.repository.isAccountOwnedBy(account, account.getOwner());
+    }
+
+    private BankProductsRepository createRepository() {
+        switch (repositoryType) {
+            case "inMemory":
+                return new InMemoryBankProductsRepository();
+            case "offHeap":
+                return new OffHeapBankProductsRepository(customerCount * accountsPerCustomer);
+            default:
+                return new ConcurrentBankProductsRepository();
+        }
+    }
+
+    private Customer randomCustomer() {
+        return fixture.customers.get(ThreadLocalRandom.current().nextInt(customerCount));
+    }
+}
@@ -0,0 +1,151 @@
+package pl.edu.agh.iet.katabank;
+
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous front-end of a {@link Bank}. Every operation runs on the executor and completes
+ * the returned future with its result, or exceptionally with the exception the bank threw.
+ * <p>
+ * Operations on the same account run one after another in the order they were submitted,
+ * while operations on different accounts run in parallel. Each account remembers the last
+ * operation submitted for it and a new operation starts only after the last operations of all
+ * its accounts have finished, whether they succeeded or not. Operations spanning two accounts
+ * are registered under a short lock, so two transfers can never wait for each other.
+ * <p>
+ * By default operations run on virtual threads when the runtime supports them (Java 21+), so an
+ * operation blocked on the journal or the repository does not hold a platform thread; on older
+ * runtimes an unbounded pool of daemon threads is used instead.
+ */
+public class AsyncBank implements Closeable {
+
+    private final Bank bank;
+    private final ExecutorService executor;
+    private final ConcurrentMap<Account, CompletableFuture<Void>> lastOperations = new ConcurrentHashMap<>();
+    private final Object multiAccountRegistration = new Object();
+
+    public AsyncBank(Bank bank) {
+        this(bank, newDefaultExecutor());
+    }
+
+    public AsyncBank(Bank bank, ExecutorService executor) {
+        this.bank = bank;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Account> openAccount(Customer customer) {
+        return CompletableFuture.supplyAsync(() -> bank.openAccount(customer), executor);
+    }
+
+    public CompletableFuture<Void> deposit(Customer customer, Account account, BigDecimal depositAmount) {
+        return submit(() -> {
+            bank.deposit(customer, account, depositAmount);
+            return null;
+        }, account);
+    }
+
+    public CompletableFuture<Void> withdraw(Customer customer, Account account, BigDecimal withdrawAmount) {
+        return submit(() -> {
+            bank.withdraw(customer, account, withdrawAmount);
+            return null;
+        }, account);
+    }
+
+    public CompletableFuture<Void> transfer(Customer customer, Account customersAccount, Account targetAccount, BigDecimal transferAmount) {
+        return submit(() -> {
+            bank.transfer(customer, customersAccount, targetAccount, transferAmount);
+            return null;
+        }, customersAccount, targetAccount);
+    }
+
+    public CompletableFuture<Deposit> openDeposit(Customer customer, Account account, BigDecimal depositBalance,
+                                                  DepositDurationDetails durationDetails, InterestPolicy depositPolicy) {
+        return submit(() -> bank.openDeposit(customer, account, depositBalance, durationDetails, depositPolicy), account);
+    }
+
+    public CompletableFuture<Void> closeDeposit(Customer customer, Deposit deposit, LocalDate closeDate) {
+        return submit(() -> {
+            bank.closeDeposit(customer, deposit, closeDate);
+            return null;
+        }, deposit.getConnectedAccount());
+    }
+
+    /**
+     * Stops accepting operations and waits for the submitted ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation, Account... accounts) {
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+        CompletableFuture<?>[] previousOperations = register(finished, accounts);
+        CompletableFuture<T> result = CompletableFuture.allOf(previousOperations)
+                .thenApplyAsync(ignored -> operation.get(), executor);
+        result.whenComplete((value, error) -> {
+            finished.complete(null);
+            for (Account account : accounts) {
+                if (account != null) {
+                    lastOperations.remove(account, finished);
+                }
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<?>[] register(CompletableFuture<Void> finished, Account[] accounts) {
+        if (accounts.length == 1) {
+            return new CompletableFuture<?>[]{registerAfter(accounts[0], finished)};
+        }
+        synchronized (multiAccountRegistration) {
+            CompletableFuture<?>[] previousOperations = new CompletableFuture<?>[accounts.length];
+            for (int i = 0; i < accounts.length; i++) {
+                previousOperations[i] = registerAfter(accounts[i], finished);
+            }
+            return previousOperations;
+        }
+    }
+
+    private CompletableFuture<Void> registerAfter(Account account, CompletableFuture<Void> finished) {
+        if (account == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> previous = lastOperations.put(account, finished);
+        return previous == null || previous == finished ? CompletableFuture.completedFuture(null) : previous;
+    }
+
+    static ExecutorService newDefaultExecutor() {
+        try {
+            Method virtualThreadExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtualThreadExecutor.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "katabank-async-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
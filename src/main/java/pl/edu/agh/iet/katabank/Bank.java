@@ -6,46 +6,186 @@ import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment;
 import pl.edu.agh.iet.katabank.bankproduct.amount.Payment;
 import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
 import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.ProductCatalog;
+import pl.edu.agh.iet.katabank.engine.AccountEngine;
+import pl.edu.agh.iet.katabank.engine.DirectAccountEngine;
+import pl.edu.agh.iet.katabank.metrics.BankMetrics;
+import pl.edu.agh.iet.katabank.metrics.BankMetrics.Counter;
+import pl.edu.agh.iet.katabank.metrics.BankMetrics.Timer;
+import pl.edu.agh.iet.katabank.operation.Operation;
+import pl.edu.agh.iet.katabank.operation.OperationResult;
+import pl.edu.agh.iet.katabank.portfolio.CustomerPortfolio;
 import pl.edu.agh.iet.katabank.repository.BankProductsRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Bank {
 
-    private static final String ERROR_MESSAGE_DEPOSIT = "Customer cannot deposit money to others account.";
-    private static final String ERROR_MESSAGE_WITHDRAW = "Customer cannot withdraw money from others account.";
-    private static final String ERROR_MESSAGE_TRANSFER = "Customer cannot transfer money from others account.";
+    static final String ERROR_MESSAGE_DEPOSIT = "Customer cannot deposit money to others account.";
+    static final String ERROR_MESSAGE_WITHDRAW = "Customer cannot withdraw money from others account.";
+    static final String ERROR_MESSAGE_TRANSFER = "Customer cannot transfer money from others account.";
     private static final String ERROR_MESSAGE_OPEN_DEPOSIT = "Customer cannot open deposit from others account.";
+    private static final String ERROR_MESSAGE_CLOSE_DEPOSIT = "Customer cannot close others deposit.";
 
     private BankProductsRepository bankProductsRepository;
+    private final AccountEngine accountEngine;
+    private final IdempotencyCache idempotencyCache;
+    private final List<BankEventListener> eventListeners = new CopyOnWriteArrayList<>();
 
     public Bank(BankProductsRepository bankProductsRepository) {
+        this(bankProductsRepository, DirectAccountEngine.INSTANCE);
+    }
+
+    /**
+     * Creates a bank applying deposits, withdrawals, transfers and deposit openings through the
+     * given engine, e.g. a {@link pl.edu.agh.iet.katabank.engine.ShardedAccountEngine}.
+     */
+    public Bank(BankProductsRepository bankProductsRepository, AccountEngine accountEngine) {
+        this(bankProductsRepository, accountEngine, new IdempotencyCache());
+    }
+
+    /**
+     * Creates a bank remembering the outcomes of operations called with an idempotency key in
+     * the given cache.
+     */
+    public Bank(BankProductsRepository bankProductsRepository, AccountEngine accountEngine, IdempotencyCache idempotencyCache) {
         this.bankProductsRepository = bankProductsRepository;
+        this.accountEngine = accountEngine;
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    public void addEventListener(BankEventListener eventListener) {
+        eventListeners.add(eventListener);
+    }
+
+    public Account openAccount(Customer customer) {
+        Account account = bankProductsRepository.openAccount(customer);
+        BankMetrics.increment(Counter.ACCOUNTS_OPENED);
+        for (BankEventListener eventListener : eventListeners) {
+            eventListener.accountOpened(account);
+        }
+        return account;
+    }
+
+    /**
+     * Opens an account once per idempotency key; a retry returns the account opened first.
+     */
+    public Account openAccount(String idempotencyKey, Customer customer) {
+        return idempotencyCache.execute(idempotencyKey, "openAccount", Collections.singletonList(customer),
+                () -> openAccount(customer));
     }
 
     public Set<Account> getAccountsForCustomer(Customer customer) {
         return bankProductsRepository.findAccountsForCustomer(customer);
     }
 
+    /**
+     * Lazy view of the customer's accounts and deposits, for walking large product lists.
+     */
+    public CustomerPortfolio getPortfolio(Customer customer) {
+        return new CustomerPortfolio(bankProductsRepository, customer);
+    }
+
     public void deposit(Customer customer, Account account, BigDecimal depositAmount) {
         checkOperationNotAllowed(customer, account, ERROR_MESSAGE_DEPOSIT);
-        account.deposit(depositAmount);
+        accountEngine.deposit(account, depositAmount);
+        BankMetrics.increment(Counter.DEPOSITS);
+        for (BankEventListener eventListener : eventListeners) {
+            eventListener.deposited(account, depositAmount);
+        }
+    }
+
+    /**
+     * Deposits once per idempotency key; a retry has no effect, or throws the exception of the
+     * first attempt. The same applies to all operations taking an idempotency key.
+     */
+    public void deposit(String idempotencyKey, Customer customer, Account account, BigDecimal depositAmount) {
+        idempotencyCache.execute(idempotencyKey, "deposit", Arrays.asList(customer, account, depositAmount), () -> {
+            deposit(customer, account, depositAmount);
+            return null;
+        });
     }
 
     public void withdraw(Customer customer, Account account, BigDecimal withdrawAmount) {
         checkOperationNotAllowed(customer, account, ERROR_MESSAGE_WITHDRAW);
-        account.withdraw(withdrawAmount);
+        accountEngine.withdraw(account, withdrawAmount);
+        BankMetrics.increment(Counter.WITHDRAWALS);
+        for (BankEventListener eventListener : eventListeners) {
+            eventListener.withdrawn(account, withdrawAmount);
+        }
+    }
+
+    public void withdraw(String idempotencyKey, Customer customer, Account account, BigDecimal withdrawAmount) {
+        idempotencyCache.execute(idempotencyKey, "withdraw", Arrays.asList(customer, account, withdrawAmount), () -> {
+            withdraw(customer, account, withdrawAmount);
+            return null;
+        });
     }
 
     public void transfer(Customer customer, Account customersAccount, Account targetAccount, BigDecimal transferAmount) {
+        long startTime = BankMetrics.startTimer();
         checkOperationNotAllowed(customer, customersAccount, ERROR_MESSAGE_TRANSFER);
-        customersAccount.transfer(targetAccount, transferAmount);
+        accountEngine.transfer(customersAccount, targetAccount, transferAmount);
+        BankMetrics.increment(Counter.TRANSFERS);
+        BankMetrics.stopTimer(Timer.TRANSFER, startTime);
+        for (BankEventListener eventListener : eventListeners) {
+            eventListener.transferred(customersAccount, targetAccount, transferAmount);
+        }
+    }
+
+    public void transfer(String idempotencyKey, Customer customer, Account customersAccount, Account targetAccount, BigDecimal transferAmount) {
+        List<Object> arguments = Arrays.asList(customer, customersAccount, targetAccount, transferAmount);
+        idempotencyCache.execute(idempotencyKey, "transfer", arguments, () -> {
+            transfer(customer, customersAccount, targetAccount, transferAmount);
+            return null;
+        });
+    }
+
+    /**
+     * Executes all operations as one unit: either every operation is applied, or, if any of them
+     * is not allowed or would overdraw an account, none is. Ownership is checked once per account
+     * and the accounts of the batch are locked, in the order of their ids, while it is applied,
+     * so concurrent operations on them wait and never see the batch half applied or undone.
+     */
+    public List<OperationResult> execute(List<Operation> operations) {
+        List<OperationResult> results = new BatchExecution(bankProductsRepository, operations).execute();
+        if (!eventListeners.isEmpty() && !results.isEmpty() && results.get(0).isSuccessful()) {
+            for (Operation operation : operations) {
+                publish(operation);
+            }
+        }
+        return results;
+    }
+
+    public List<OperationResult> execute(String idempotencyKey, List<Operation> operations) {
+        return idempotencyCache.execute(idempotencyKey, "execute", operations, () -> execute(operations));
+    }
+
+    private void publish(Operation operation) {
+        for (BankEventListener eventListener : eventListeners) {
+            switch (operation.getType()) {
+                case DEPOSIT:
+                    eventListener.deposited(operation.getAccount(), operation.getAmount());
+                    break;
+                case WITHDRAW:
+                    eventListener.withdrawn(operation.getAccount(), operation.getAmount());
+                    break;
+                case TRANSFER:
+                    eventListener.transferred(operation.getAccount(), operation.getTargetAccount(), operation.getAmount());
+                    break;
+            }
+        }
     }
 
     private void checkOperationNotAllowed(Customer customer, Account account, String message) {
-        if (!getAccountsForCustomer(customer).contains(account)) {
+        if (!bankProductsRepository.isAccountOwnedBy(account, customer)) {
+            BankMetrics.increment(Counter.REJECTED_OPERATIONS);
             throw new RuntimeException(message);
         }
     }
@@ -55,10 +195,43 @@ public class Bank {
     }
 
     public Deposit openDeposit(Customer customer, Account account, BigDecimal depositBalance, DepositDurationDetails durationDetails, InterestPolicy depositPolicy) {
+        long startTime = BankMetrics.startTimer();
         checkOperationNotAllowed(customer, account, ERROR_MESSAGE_OPEN_DEPOSIT);
-        account.withdraw(depositBalance);
+        depositPolicy = ProductCatalog.intern(depositPolicy);
+        durationDetails = ProductCatalog.intern(durationDetails);
+        accountEngine.withdraw(account, depositBalance);
+        BigDecimal withdrawnAmount = depositBalance;
         depositBalance = depositPolicy.preProcessAmount(depositBalance);
         Payment depositPayment = new DepositPayment(depositBalance, LocalDate.now());
-        return new Deposit(account, depositPayment, durationDetails, depositPolicy);
+        Deposit deposit = new Deposit(account, depositPayment, durationDetails, depositPolicy);
+        bankProductsRepository.addDeposit(deposit);
+        BankMetrics.increment(Counter.DEPOSITS_OPENED);
+        BankMetrics.stopTimer(Timer.OPEN_DEPOSIT, startTime);
+        for (BankEventListener eventListener : eventListeners) {
+            eventListener.depositOpened(deposit, withdrawnAmount, durationDetails, depositPolicy);
+        }
+        return deposit;
+    }
+
+    public Deposit openDeposit(String idempotencyKey, Customer customer, Account account, BigDecimal depositBalance,
+                               DepositDurationDetails durationDetails, InterestPolicy depositPolicy) {
+        return idempotencyCache.execute(idempotencyKey, "openDeposit",
+                Arrays.asList(customer, account, depositBalance, durationDetails, depositPolicy),
+                () -> openDeposit(customer, account, depositBalance, durationDetails, depositPolicy));
+    }
+
+    public void closeDeposit(Customer customer, Deposit deposit, LocalDate closeDate) {
+        checkOperationNotAllowed(customer, deposit.getConnectedAccount(), ERROR_MESSAGE_CLOSE_DEPOSIT);
+        deposit.closeDeposit(closeDate);
+        for (BankEventListener eventListener : eventListeners) {
+            eventListener.depositClosed(deposit, closeDate);
+        }
+    }
+
+    public void closeDeposit(String idempotencyKey, Customer customer, Deposit deposit, LocalDate closeDate) {
+        idempotencyCache.execute(idempotencyKey, "closeDeposit", Arrays.asList(customer, deposit, closeDate), () -> {
+            closeDeposit(customer, deposit, closeDate);
+            return null;
+        });
     }
 }
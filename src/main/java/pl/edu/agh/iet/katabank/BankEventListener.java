@@ -0,0 +1,35 @@
+package pl.edu.agh.iet.katabank;
+
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Receives every successful state change made through {@link Bank}, after it has been applied.
+ * Listeners are called on the thread performing the operation.
+ */
+public interface BankEventListener {
+
+    default void accountOpened(Account account) {
+    }
+
+    default void deposited(Account account, BigDecimal amount) {
+    }
+
+    default void withdrawn(Account account, BigDecimal amount) {
+    }
+
+    default void transferred(Account account, Account targetAccount, BigDecimal amount) {
+    }
+
+    default void depositOpened(Deposit deposit, BigDecimal withdrawnAmount,
+                               DepositDurationDetails durationDetails, InterestPolicy interestPolicy) {
+    }
+
+    default void depositClosed(Deposit deposit, LocalDate closeDate) {
+    }
+}
@@ -0,0 +1,137 @@
+package pl.edu.agh.iet.katabank;
+
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.AccountBatch;
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money;
+import pl.edu.agh.iet.katabank.operation.Operation;
+import pl.edu.agh.iet.katabank.operation.OperationResult;
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static pl.edu.agh.iet.katabank.operation.OperationResult.Status.FAILED;
+import static pl.edu.agh.iet.katabank.operation.OperationResult.Status.ROLLED_BACK;
+import static pl.edu.agh.iet.katabank.operation.OperationResult.Status.SUCCESS;
+
+/**
+ * Executes a batch of operations all-or-nothing. Ownership and amounts are checked first; then
+ * the accounts of the batch are locked together in an {@link AccountBatch} and the operations are
+ * applied one by one against the locked balances, which nobody else can change meanwhile. The
+ * changes are committed only when every operation succeeded, so concurrent operations see either
+ * none of them or all of them.
+ */
+class BatchExecution {
+
+    private static final String INCORRECT_AMOUNT_MESSAGE = "Incorrect amount to process: ";
+    private static final String TARGET_ACCOUNT_NULL_MESSAGE = "Target account cannot be null.";
+    private static final String BATCH_REJECTED_MESSAGE = "Batch rejected: ";
+
+    private final BankProductsRepository bankProductsRepository;
+    private final List<Operation> operations;
+    private final Map<Account, Customer> verifiedOwners = new HashMap<>();
+
+    BatchExecution(BankProductsRepository bankProductsRepository, List<Operation> operations) {
+        this.bankProductsRepository = bankProductsRepository;
+        this.operations = operations;
+    }
+
+    List<OperationResult> execute() {
+        Set<Account> accounts = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            String error = validate(operation);
+            if (error != null) {
+                return reject(i, error);
+            }
+            accounts.add(operation.getAccount());
+            if (operation.getTargetAccount() != null) {
+                accounts.add(operation.getTargetAccount());
+            }
+        }
+        try (AccountBatch batch = AccountBatch.lock(accounts)) {
+            for (int i = 0; i < operations.size(); i++) {
+                try {
+                    apply(batch, operations.get(i));
+                } catch (IllegalArgumentException ex) {
+                    return reject(i, ex.getMessage());
+                }
+            }
+            batch.commit();
+        }
+        List<OperationResult> results = new ArrayList<>(operations.size());
+        for (Operation operation : operations) {
+            results.add(new OperationResult(operation, SUCCESS, null));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    private String validate(Operation operation) {
+        if (!isOwner(operation.getCustomer(), operation.getAccount())) {
+            return ownershipMessage(operation.getType());
+        }
+        BigDecimal amount = operation.getAmount();
+        if (amount == null || amount.signum() <= 0 || !Money.isExact(amount)) {
+            return INCORRECT_AMOUNT_MESSAGE + (amount == null ? null : amount.toString());
+        }
+        if (operation.getType() == Operation.Type.TRANSFER && operation.getTargetAccount() == null) {
+            return TARGET_ACCOUNT_NULL_MESSAGE;
+        }
+        return null;
+    }
+
+    private boolean isOwner(Customer customer, Account account) {
+        Customer verifiedOwner = verifiedOwners.get(account);
+        if (verifiedOwner != null) {
+            return verifiedOwner.equals(customer);
+        }
+        if (!bankProductsRepository.isAccountOwnedBy(account, customer)) {
+            return false;
+        }
+        verifiedOwners.put(account, customer);
+        return true;
+    }
+
+    private static void apply(AccountBatch batch, Operation operation) {
+        Money amount = Money.of(operation.getAmount());
+        switch (operation.getType()) {
+            case DEPOSIT:
+                batch.deposit(operation.getAccount(), amount);
+                return;
+            case WITHDRAW:
+                batch.withdraw(operation.getAccount(), amount);
+                return;
+            case TRANSFER:
+                batch.transfer(operation.getAccount(), operation.getTargetAccount(), amount);
+                return;
+        }
+        throw new IllegalStateException("Unknown operation type: " + operation.getType());
+    }
+
+    private List<OperationResult> reject(int failedIndex, String error) {
+        List<OperationResult> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            results.add(i == failedIndex
+                    ? new OperationResult(operations.get(i), FAILED, error)
+                    : new OperationResult(operations.get(i), ROLLED_BACK, BATCH_REJECTED_MESSAGE + error));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    private static String ownershipMessage(Operation.Type type) {
+        switch (type) {
+            case DEPOSIT:
+                return Bank.ERROR_MESSAGE_DEPOSIT;
+            case WITHDRAW:
+                return Bank.ERROR_MESSAGE_WITHDRAW;
+            default:
+                return Bank.ERROR_MESSAGE_TRANSFER;
+        }
+    }
+}
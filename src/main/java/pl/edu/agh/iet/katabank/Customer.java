@@ -1,14 +1,21 @@
 package pl.edu.agh.iet.katabank;
 
-import java.util.Objects;
-import java.util.UUID;
+import pl.edu.agh.iet.katabank.id.Identifiers;
 
 public class Customer {
 
-    private final UUID id;
+    private final long id;
 
     public Customer() {
-        this.id = UUID.randomUUID();
+        this(Identifiers.nextId());
+    }
+
+    public Customer(long id) {
+        this.id = id;
+    }
+
+    public long getId() {
+        return this.id;
     }
 
     @Override
@@ -16,11 +23,11 @@ public class Customer {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Customer customer = (Customer) o;
-        return Objects.equals(id, customer.id);
+        return id == customer.id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Long.hashCode(id);
     }
 }
@@ -0,0 +1,163 @@
+package pl.edu.agh.iet.katabank;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import pl.edu.agh.iet.katabank.metrics.BankMetrics;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of operations by idempotency key, so an operation retried with the same
+ * key is executed once and every retry gets the original result, or the original exception
+ * thrown again. Concurrent calls with one key wait for the first to finish; calls with different
+ * keys do not block each other. A key reused for another operation, or for the same operation
+ * with other arguments, is rejected rather than answered with the result of the first one.
+ * <p>
+ * Outcomes are kept for a limited time after the operation finished and up to a maximum number
+ * of keys, by default 24 hours and 1,000,000 keys, set with the
+ * {@code katabank.idempotency.expireAfterMinutes} and {@code katabank.idempotency.maximumSize}
+ * system properties. A key retried after its outcome was evicted executes the operation again.
+ */
+public class IdempotencyCache {
+
+    private static final String NULL_KEY_MESSAGE = "Idempotency key cannot be null.";
+    private static final String KEY_REUSED_MESSAGE = "Idempotency key already used for another operation: ";
+    private static final String KEY_REUSED_WITH_OTHER_ARGUMENTS_MESSAGE = "Idempotency key already used with other arguments: ";
+    private static final long DEFAULT_EXPIRE_AFTER_MINUTES = Long.getLong("katabank.idempotency.expireAfterMinutes", TimeUnit.DAYS.toMinutes(1));
+    private static final long DEFAULT_MAXIMUM_SIZE = Long.getLong("katabank.idempotency.maximumSize", 1000000);
+
+    private final Cache<String, Outcome> outcomes;
+
+    public IdempotencyCache() {
+        this(DEFAULT_EXPIRE_AFTER_MINUTES, TimeUnit.MINUTES, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public IdempotencyCache(long expireAfter, TimeUnit unit, long maximumSize) {
+        this(expireAfter, unit, maximumSize, Ticker.systemTicker());
+    }
+
+    IdempotencyCache(long expireAfter, TimeUnit unit, long maximumSize, Ticker ticker) {
+        this.outcomes = CacheBuilder.newBuilder()
+                .expireAfterWrite(expireAfter, unit)
+                .maximumSize(maximumSize)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Executes an operation without arguments, see {@link #execute(String, String, List, Supplier)}.
+     */
+    public <T> T execute(String idempotencyKey, String operationName, Supplier<T> operation) {
+        return execute(idempotencyKey, operationName, Collections.emptyList(), operation);
+    }
+
+    /**
+     * Executes the operation unless an operation with the same key has been executed already,
+     * and returns its result or throws its exception.
+     *
+     * @param operationName tells operations apart, so a key reused for a different kind of
+     *                      operation is rejected instead of returning an unrelated result
+     * @param arguments     arguments of the operation, kept with its outcome; a retry has to pass
+     *                      equal ones, amounts being compared by value
+     */
+    public <T> T execute(String idempotencyKey, String operationName, List<?> arguments, Supplier<T> operation) {
+        if (idempotencyKey == null) {
+            throw new IllegalArgumentException(NULL_KEY_MESSAGE);
+        }
+        Outcome outcome = outcomes.getIfPresent(idempotencyKey);
+        if (outcome == null) {
+            Outcome[] executed = new Outcome[1];
+            try {
+                outcome = outcomes.get(idempotencyKey, () -> executed[0] = Outcome.of(operationName, arguments, operation));
+            } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+                throw propagate(e.getCause());
+            }
+            if (outcome == executed[0]) {
+                return outcome.get();
+            }
+        }
+        if (!outcome.operationName.equals(operationName)) {
+            throw new IllegalArgumentException(KEY_REUSED_MESSAGE + idempotencyKey);
+        }
+        if (!outcome.hasArguments(arguments)) {
+            throw new IllegalArgumentException(KEY_REUSED_WITH_OTHER_ARGUMENTS_MESSAGE + idempotencyKey);
+        }
+        BankMetrics.increment(BankMetrics.Counter.IDEMPOTENT_REPLAYS);
+        return outcome.get();
+    }
+
+    public long size() {
+        return outcomes.size();
+    }
+
+    public void invalidateAll() {
+        outcomes.invalidateAll();
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private static final class Outcome {
+
+        private final String operationName;
+        private final List<?> arguments;
+        private final Object result;
+        private final RuntimeException exception;
+
+        private Outcome(String operationName, List<?> arguments, Object result, RuntimeException exception) {
+            this.operationName = operationName;
+            this.arguments = arguments;
+            this.result = result;
+            this.exception = exception;
+        }
+
+        static Outcome of(String operationName, List<?> arguments, Supplier<?> operation) {
+            try {
+                return new Outcome(operationName, arguments, operation.get(), null);
+            } catch (RuntimeException e) {
+                return new Outcome(operationName, arguments, null, e);
+            }
+        }
+
+        boolean hasArguments(List<?> otherArguments) {
+            if (arguments.size() != otherArguments.size()) {
+                return false;
+            }
+            for (int i = 0; i < arguments.size(); i++) {
+                Object argument = arguments.get(i);
+                Object otherArgument = otherArguments.get(i);
+                boolean equal = argument instanceof BigDecimal && otherArgument instanceof BigDecimal
+                        ? ((BigDecimal) argument).compareTo((BigDecimal) otherArgument) == 0
+                        : Objects.equals(argument, otherArgument);
+                if (!equal) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T get() {
+            if (exception != null) {
+                throw exception;
+            }
+            return (T) result;
+        }
+    }
+}
@@ -1,21 +1,126 @@
 package pl.edu.agh.iet.katabank.bankproduct;
 
 import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money;
+import pl.edu.agh.iet.katabank.id.Identifiers;
+import pl.edu.agh.iet.katabank.metrics.BankMetrics;
 
 import java.math.BigDecimal;
-import java.util.Objects;
-import java.util.UUID;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Account balance is kept in minor units (see {@link Money}); {@link BigDecimal} amounts
+ * are converted once when they enter, so updates are plain CAS loops on a {@code long}.
+ * Subclasses may keep the balance elsewhere by overriding the protected balance primitives.
+ * <p>
+ * An account created with a ledger clock records every change of its balance, including
+ * {@link #setBalance}, in its {@link AccountLedger}, so past balances and transfers can be looked
+ * up later. The change and its entry are made under the ledger's lock, so the ledger lists them
+ * in the order they were applied, at the cost of serializing the updates of that account and of
+ * memory growing with its history. Accounts are created without a ledger by default and update
+ * their balance lock-free.
+ * <p>
+ * An account credited by many threads at once, such as a merchant's, can be switched to hot
+ * mode, either explicitly with {@link #promoteToHotMode()} or automatically once updates of its
+ * balance have found it busy {@code katabank.hotAccount.promotionThreshold} times (1000 by
+ * default, 0 turns automatic promotion off) within {@code katabank.hotAccount.promotionWindowMillis}
+ * (1000 by default), so only contention sustained at that rate promotes an account, however long
+ * it lives. In hot mode credits are added to striped
+ * sub-balances and never retry, while debits are serialized by a lock and reserve the amount
+ * only if the sum of the base balance and all sub-balances covers it. Sub-balances only ever
+ * grow, so a sum read while credits arrive can only understate the balance and a debit can
+ * never overdraw the account. Credits of a hot account skip the ledger's lock as well, see
+ * {@link AccountLedger}.
+ * <p>
+ * An {@link AccountBatch} locks the balance by replacing it with a marker, or, in hot mode, by
+ * holding the debit lock, and stores the result when it is done. Updates and reads of a locked
+ * balance wait for it, so nobody sees a batch half applied; credits of a hot account still go to
+ * the sub-balances, which the batch does not touch.
+ */
 public class Account implements BankProduct {
 
+    private static final String INSUFFICIENT_FUNDS_MESSAGE = "The amount to withdraw is greater than account balance.";
+    private static final String NO_LEDGER_MESSAGE = "Account does not keep a ledger.";
+    private static final String NO_HOT_MODE_MESSAGE = "Account keeps its balance elsewhere and cannot switch to hot mode.";
+    private static final int HOT_MODE_PROMOTION_THRESHOLD = Integer.getInteger("katabank.hotAccount.promotionThreshold", 1000);
+    private static final long HOT_MODE_PROMOTION_WINDOW_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("katabank.hotAccount.promotionWindowMillis", 1000));
+    private static final long LOCKED_BALANCE = Long.MIN_VALUE;
+    private static final AtomicReferenceFieldUpdater<Account, HotBalance> HOT_BALANCE =
+            AtomicReferenceFieldUpdater.newUpdater(Account.class, HotBalance.class, "hotBalance");
+
     private final Customer owner;
-    private BigDecimal balance;
-    private final UUID id;
+    private final AtomicLong balance;
+    private final AccountLedger ledger;
+    private final long id;
+    private volatile HotBalance hotBalance;
+    private volatile long contentionWindowStart;
+    private volatile int contendedUpdates;
 
     public Account(Customer owner) {
+        this(owner, Identifiers.nextId());
+    }
+
+    public Account(Customer owner, long id) {
+        this(owner, id, new AtomicLong(), null);
+    }
+
+    /**
+     * Account keeping a ledger, see {@link #getLedger()}.
+     */
+    public Account(Customer owner, Clock ledgerClock) {
+        this(owner, Identifiers.nextId(), ledgerClock);
+    }
+
+    /**
+     * Account keeping a ledger, see {@link #getLedger()}.
+     *
+     * @param ledgerClock stamps the entries of the account's ledger
+     */
+    public Account(Customer owner, long id, Clock ledgerClock) {
+        this(owner, id, new AtomicLong(), new AccountLedger(ledgerClock, 0));
+    }
+
+    /**
+     * Account restored with the given balance, e.g. from a journal, without a ledger.
+     */
+    public static Account restore(Customer owner, long id, Money balance) {
+        return new Account(owner, id, new AtomicLong(balance.getMinorUnits()), null);
+    }
+
+    /**
+     * Account restored with the given balance and keeping a ledger. The balance is where the
+     * ledger starts rather than an entry of it, so the restore leaves no trace in the history.
+     */
+    public static Account restore(Customer owner, long id, Money balance, Clock ledgerClock) {
+        return new Account(owner, id, new AtomicLong(balance.getMinorUnits()),
+                new AccountLedger(ledgerClock, balance.getMinorUnits()));
+    }
+
+    /**
+     * For subclasses which override the balance primitives, in which case {@code balance}
+     * may be {@code null}. Such accounts keep their history, if any, themselves and have no ledger.
+     */
+    protected Account(Customer owner, long id, AtomicLong balance) {
+        this(owner, id, balance, null);
+    }
+
+    private Account(Customer owner, long id, AtomicLong balance, AccountLedger ledger) {
         this.owner = owner;
-        this.id = UUID.randomUUID();
-        this.balance = new BigDecimal(0);
+        this.id = id;
+        this.balance = balance;
+        this.ledger = ledger;
+        this.contentionWindowStart = System.nanoTime();
+    }
+
+    public long getId() {
+        return this.id;
     }
 
     public Customer getOwner() {
@@ -23,7 +128,40 @@ public class Account implements BankProduct {
     }
 
     public BigDecimal getBalance() {
-        return this.balance;
+        return Money.toBigDecimal(unlockedBalance());
+    }
+
+    public Money getMoneyBalance() {
+        return Money.ofMinorUnits(unlockedBalance());
+    }
+
+    public boolean isHot() {
+        return this.hotBalance != null;
+    }
+
+    /**
+     * Switches the account to hot mode for the rest of its life; does nothing if it is
+     * already hot.
+     *
+     * @throws UnsupportedOperationException if a subclass keeps the balance elsewhere
+     */
+    public void promoteToHotMode() {
+        if (this.balance == null) {
+            throw new UnsupportedOperationException(NO_HOT_MODE_MESSAGE);
+        }
+        if (HOT_BALANCE.compareAndSet(this, null, new HotBalance())) {
+            BankMetrics.increment(BankMetrics.Counter.HOT_ACCOUNTS_PROMOTED);
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the account was created without a ledger clock
+     */
+    public AccountLedger getLedger() {
+        if (this.ledger == null) {
+            throw new UnsupportedOperationException(NO_LEDGER_MESSAGE);
+        }
+        return this.ledger;
     }
 
     @Override
@@ -31,43 +169,365 @@ public class Account implements BankProduct {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Account account = (Account) o;
-        return Objects.equals(id, account.id);
+        return id == account.id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Long.hashCode(id);
     }
 
+    /**
+     * Overwrites the balance, recording the difference as an adjustment in the ledger.
+     */
     public void setBalance(BigDecimal balance) {
-        this.balance = balance;
+        long updated = Money.toMinorUnits(balance);
+        if (ledger == null) {
+            replaceBalance(updated);
+            return;
+        }
+        lockLedger();
+        try {
+            long current = replaceBalance(updated);
+            if (updated != current) {
+                ledger.append(LedgerEntryType.ADJUSTMENT, updated - current, LedgerEntry.NO_COUNTERPARTY);
+            }
+        } finally {
+            ledger.unlock();
+        }
+    }
+
+    /**
+     * @return the balance before the update
+     */
+    private long replaceBalance(long updated) {
+        while (true) {
+            HotBalance hot = this.hotBalance;
+            if (hot != null) {
+                return hot.set(this.balance, updated);
+            }
+            long current = unlockedBalance();
+            if (compareAndSetBalance(current, updated)) {
+                return current;
+            }
+        }
     }
 
     public void withdraw(BigDecimal amount) throws IllegalArgumentException {
         checkValidAmount(amount);
-        if (amount.compareTo(this.balance) > 0) {
-            throw new IllegalArgumentException("The amount to withdraw is greater than account balance.");
-        }
-        this.balance = this.balance.subtract(amount);
+        withdrawMinorUnits(Money.toMinorUnits(amount), LedgerEntryType.WITHDRAWAL, LedgerEntry.NO_COUNTERPARTY);
+    }
+
+    public void withdraw(Money amount) throws IllegalArgumentException {
+        checkValidAmount(amount);
+        withdrawMinorUnits(amount.getMinorUnits(), LedgerEntryType.WITHDRAWAL, LedgerEntry.NO_COUNTERPARTY);
     }
 
     public void deposit(BigDecimal amount) {
         checkValidAmount(amount);
-        this.balance = this.balance.add(amount);
+        depositMinorUnits(Money.toMinorUnits(amount), LedgerEntryType.DEPOSIT, LedgerEntry.NO_COUNTERPARTY);
+    }
+
+    public void deposit(Money amount) {
+        checkValidAmount(amount);
+        depositMinorUnits(amount.getMinorUnits(), LedgerEntryType.DEPOSIT, LedgerEntry.NO_COUNTERPARTY);
+    }
+
+    private void withdrawMinorUnits(long amount, LedgerEntryType entryType, long counterpartyAccountId) {
+        if (ledger == null) {
+            subtractFromBalance(amount);
+            return;
+        }
+        lockLedger();
+        try {
+            subtractFromBalance(amount);
+            ledger.append(entryType, -amount, counterpartyAccountId);
+        } finally {
+            ledger.unlock();
+        }
+    }
+
+    private void subtractFromBalance(long amount) {
+        HotBalance hot;
+        while ((hot = this.hotBalance) == null) {
+            long current = unlockedBalance();
+            if (amount > current) {
+                throw insufficientFunds();
+            }
+            if (compareAndSetBalance(current, current - amount)) {
+                return;
+            }
+            onContendedUpdate();
+        }
+        if (!hot.reserve(this.balance, amount)) {
+            throw insufficientFunds();
+        }
+    }
+
+    /**
+     * A credit of a hot account is queued in the ledger before it is added to the sub-balances,
+     * so no debit spending it can be listed before it.
+     */
+    private void depositMinorUnits(long amount, LedgerEntryType entryType, long counterpartyAccountId) {
+        HotBalance hot = this.hotBalance;
+        if (hot == null && ledger != null) {
+            lockLedger();
+            try {
+                hot = this.hotBalance;
+                if (hot == null) {
+                    storeBalance(Math.addExact(loadBalance(), amount));
+                    ledger.append(entryType, amount, counterpartyAccountId);
+                    return;
+                }
+            } finally {
+                ledger.unlock();
+            }
+        }
+        while (hot == null) {
+            long current = unlockedBalance();
+            if (compareAndSetBalance(current, Math.addExact(current, amount))) {
+                return;
+            }
+            onContendedUpdate();
+            hot = this.hotBalance;
+        }
+        hot.checkCredit(this.balance, amount);
+        if (ledger != null) {
+            ledger.appendLater(entryType, amount, counterpartyAccountId);
+        }
+        hot.credits.add(amount);
+    }
+
+    /**
+     * Locks the balance for an {@link AccountBatch} and returns it; the ledger, if any, is locked
+     * first, so updates which hold the ledger's lock never find the balance locked.
+     */
+    long lockBalance() {
+        if (ledger != null) {
+            lockLedger();
+        }
+        while (true) {
+            HotBalance hot = this.hotBalance;
+            if (hot != null) {
+                hot.debitLock.lock();
+                return HotBalance.unlockedBase(this.balance) + hot.credits.sum();
+            }
+            long current = unlockedBalance();
+            if (compareAndSetBalance(current, LOCKED_BALANCE)) {
+                if (this.hotBalance == null) {
+                    return current;
+                }
+                storeBalance(current);
+            }
+        }
+    }
+
+    /**
+     * Appends an entry for a change made by the {@link AccountBatch} holding the balance locked.
+     */
+    void appendLocked(LedgerEntryType entryType, long amount, long counterpartyAccountId) {
+        if (ledger != null) {
+            ledger.append(entryType, amount, counterpartyAccountId);
+        }
+    }
+
+    /**
+     * Stores the balance changed by the {@link AccountBatch} from {@code locked}, the balance it
+     * was locked with, to {@code updated} and unlocks it. A hot balance is changed by the
+     * difference, as credits may have arrived in the meantime.
+     */
+    void unlockBalance(long locked, long updated) {
+        try {
+            HotBalance hot = this.hotBalance;
+            if (hot == null || loadBalance() == LOCKED_BALANCE) {
+                storeBalance(updated);
+            } else {
+                this.balance.addAndGet(updated - locked);
+                hot.debitLock.unlock();
+            }
+        } finally {
+            if (ledger != null) {
+                ledger.unlock();
+            }
+        }
+    }
+
+    private long unlockedBalance() {
+        long current;
+        while ((current = loadBalance()) == LOCKED_BALANCE) {
+            Thread.yield();
+        }
+        return current;
+    }
+
+    private IllegalArgumentException insufficientFunds() {
+        BankMetrics.increment(BankMetrics.Counter.INSUFFICIENT_FUNDS);
+        return new IllegalArgumentException(INSUFFICIENT_FUNDS_MESSAGE);
+    }
+
+    private void lockLedger() {
+        if (!ledger.tryLock()) {
+            onContendedUpdate();
+            ledger.lock();
+        }
+    }
+
+    /**
+     * Counts updates which found the ledger locked or failed their CAS within the current
+     * promotion window, starting a new window once it has passed. The count is racy, which only
+     * delays promotion by a few updates.
+     */
+    private void onContendedUpdate() {
+        if (HOT_MODE_PROMOTION_THRESHOLD <= 0 || this.balance == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - this.contentionWindowStart > HOT_MODE_PROMOTION_WINDOW_NANOS) {
+            this.contentionWindowStart = now;
+            this.contendedUpdates = 1;
+        } else if (++this.contendedUpdates >= HOT_MODE_PROMOTION_THRESHOLD) {
+            promoteToHotMode();
+        }
+    }
+
+    /**
+     * In hot mode the base balance and the sub-balances are read one after another rather than
+     * as one snapshot, so the result may count credits already spent by a debit made in between
+     * and momentarily overstate the balance, though it is never below zero. Debits do not rely on
+     * it: they check funds in {@link HotBalance#reserve} under the debit lock, where the base can
+     * only grow while it is read and the sum can only understate the balance.
+     */
+    protected long loadBalance() {
+        HotBalance hot = this.hotBalance;
+        long base = this.balance.get();
+        return hot == null || base == LOCKED_BALANCE ? base : base + hot.credits.sum();
+    }
+
+    protected void storeBalance(long minorUnits) {
+        this.balance.set(minorUnits);
     }
 
+    protected boolean compareAndSetBalance(long expected, long updated) {
+        return this.balance.compareAndSet(expected, updated);
+    }
+
+    /**
+     * Amounts with digits below the minor unit are rejected rather than rounded, which could
+     * silently turn them into a zero change.
+     */
     private void checkValidAmount(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0 || !Money.isExact(amount)) {
+            throw new IllegalArgumentException("Incorrect amount to process: "
+                    + (amount == null ? null : amount.toString()));
+        }
+    }
+
+    private void checkValidAmount(Money amount) {
         if (amount == null || amount.signum() <= 0) {
             throw new IllegalArgumentException("Incorrect amount to process: "
                     + (amount == null ? null : amount.toString()));
         }
     }
 
+    /**
+     * Transfers are optimistic: the source is debited first and the target is credited
+     * afterwards. A credit can never fail, so neither account is locked while the other one is
+     * updated and two opposite transfers cannot deadlock: accounts without a ledger are updated
+     * with CAS retry loops, and a ledger's lock is held only for the update of its own account.
+     */
     public void transfer(Account targetAccount, BigDecimal bigDecimal) {
         if (targetAccount == null) {
             throw new RuntimeException("Target account cannot be null.");
         }
-        this.withdraw(bigDecimal);
-        targetAccount.deposit(bigDecimal);
+        checkValidAmount(bigDecimal);
+        long amount = Money.toMinorUnits(bigDecimal);
+        this.withdrawMinorUnits(amount, LedgerEntryType.TRANSFER_OUT, targetAccount.getId());
+        targetAccount.depositMinorUnits(amount, LedgerEntryType.TRANSFER_IN, this.getId());
+    }
+
+    /**
+     * Debit leg of a transfer whose credit leg, {@link #creditTransfer}, is applied separately,
+     * e.g. by another thread. The debit is recorded as a transfer to the target account.
+     */
+    public void debitTransfer(Account targetAccount, BigDecimal amount) {
+        if (targetAccount == null) {
+            throw new RuntimeException("Target account cannot be null.");
+        }
+        checkValidAmount(amount);
+        withdrawMinorUnits(Money.toMinorUnits(amount), LedgerEntryType.TRANSFER_OUT, targetAccount.getId());
+    }
+
+    /**
+     * Credit leg of a transfer whose debit leg, {@link #debitTransfer}, has been applied to the
+     * source account. The credit is recorded as a transfer from the source account.
+     */
+    public void creditTransfer(Account sourceAccount, BigDecimal amount) {
+        checkValidAmount(amount);
+        depositMinorUnits(Money.toMinorUnits(amount), LedgerEntryType.TRANSFER_IN, sourceAccount.getId());
+    }
+
+    /**
+     * Credits of a hot account, on top of the base balance which then only debits and
+     * {@link #setBalance} change. Updates of the base that started before the promotion may
+     * still land on it with a CAS, so debits change it with a CAS as well.
+     */
+    private static final class HotBalance {
+
+        private final LongAdder credits = new LongAdder();
+        private final Lock debitLock = new ReentrantLock();
+
+        /**
+         * The base, once a batch which locked it before the promotion has stored it.
+         */
+        static long unlockedBase(AtomicLong base) {
+            long current;
+            while ((current = base.get()) == LOCKED_BALANCE) {
+                Thread.yield();
+            }
+            return current;
+        }
+
+        /**
+         * Refuses a credit which would overflow the balance, like the CAS path does. Credits
+         * racing with it are not counted, so only a balance within that many credits of the limit
+         * can still overflow.
+         */
+        void checkCredit(AtomicLong base, long amount) {
+            Math.addExact(Math.addExact(unlockedBase(base), credits.sum()), amount);
+        }
+
+        boolean reserve(AtomicLong base, long amount) {
+            debitLock.lock();
+            try {
+                long current;
+                do {
+                    current = unlockedBase(base);
+                    if (amount > current + credits.sum()) {
+                        return false;
+                    }
+                } while (!base.compareAndSet(current, current - amount));
+                return true;
+            } finally {
+                debitLock.unlock();
+            }
+        }
+
+        /**
+         * @return the balance before the update
+         */
+        long set(AtomicLong base, long updated) {
+            debitLock.lock();
+            try {
+                long current;
+                long credited;
+                do {
+                    current = unlockedBase(base);
+                    credited = credits.sum();
+                } while (!base.compareAndSet(current, updated - credited));
+                return current + credited;
+            } finally {
+                debitLock.unlock();
+            }
+        }
     }
 }
@@ -0,0 +1,152 @@
+package pl.edu.agh.iet.katabank.bankproduct;
+
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes of several accounts applied as one. The accounts are locked in the order of their
+ * ids, so batches sharing accounts cannot deadlock, and stay locked until the batch is closed:
+ * other updates and reads of their balances wait in the meantime, and see either none of the
+ * batch's changes or, once it is committed, all of them. Changes are checked against the locked
+ * balances, which nobody else can change, and recorded in the ledgers when the batch is closed.
+ * <p>
+ * A batch is used by the thread which locked it and must be closed, typically with
+ * try-with-resources; a batch closed without {@link #commit()} leaves the balances as they were.
+ */
+public final class AccountBatch implements AutoCloseable {
+
+    private static final String INSUFFICIENT_FUNDS_MESSAGE = "The amount to withdraw is greater than account balance.";
+    private static final String NOT_LOCKED_MESSAGE = "Account is not locked by this batch: ";
+
+    private final List<LockedAccount> lockedAccounts = new ArrayList<>();
+    private final Map<Account, LockedAccount> byAccount = new HashMap<>();
+    private boolean committed;
+
+    private AccountBatch() {
+    }
+
+    /**
+     * Locks the given accounts, waiting for batches which hold any of them.
+     */
+    public static AccountBatch lock(Collection<? extends Account> accounts) {
+        List<Account> ordered = new ArrayList<>(accounts);
+        ordered.sort(Comparator.comparingLong(Account::getId));
+        AccountBatch batch = new AccountBatch();
+        try {
+            for (Account account : ordered) {
+                if (!batch.byAccount.containsKey(account)) {
+                    LockedAccount locked = new LockedAccount(account, account.lockBalance());
+                    batch.lockedAccounts.add(locked);
+                    batch.byAccount.put(account, locked);
+                }
+            }
+        } catch (RuntimeException | Error ex) {
+            batch.close();
+            throw ex;
+        }
+        return batch;
+    }
+
+    public Money getBalance(Account account) {
+        return Money.ofMinorUnits(locked(account).balance);
+    }
+
+    public void deposit(Account account, Money amount) {
+        locked(account).change(LedgerEntryType.DEPOSIT, amount.getMinorUnits(), LedgerEntry.NO_COUNTERPARTY);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the amount is greater than the balance
+     */
+    public void withdraw(Account account, Money amount) {
+        debit(locked(account), LedgerEntryType.WITHDRAWAL, amount.getMinorUnits(), LedgerEntry.NO_COUNTERPARTY);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the amount is greater than the balance of the source
+     */
+    public void transfer(Account source, Account target, Money amount) {
+        LockedAccount lockedTarget = locked(target);
+        debit(locked(source), LedgerEntryType.TRANSFER_OUT, amount.getMinorUnits(), target.getId());
+        lockedTarget.change(LedgerEntryType.TRANSFER_IN, amount.getMinorUnits(), source.getId());
+    }
+
+    private void debit(LockedAccount account, LedgerEntryType entryType, long amount, long counterpartyAccountId) {
+        if (amount > account.balance) {
+            throw new IllegalArgumentException(INSUFFICIENT_FUNDS_MESSAGE);
+        }
+        account.change(entryType, -amount, counterpartyAccountId);
+    }
+
+    private LockedAccount locked(Account account) {
+        LockedAccount locked = byAccount.get(account);
+        if (locked == null) {
+            throw new IllegalArgumentException(NOT_LOCKED_MESSAGE + (account == null ? null : account.getId()));
+        }
+        return locked;
+    }
+
+    /**
+     * Makes the changes stay when the batch is closed.
+     */
+    public void commit() {
+        this.committed = true;
+    }
+
+    /**
+     * Stores the committed balances, or the ones the accounts were locked with, and unlocks the
+     * accounts in the reverse order.
+     */
+    @Override
+    public void close() {
+        for (int i = lockedAccounts.size() - 1; i >= 0; i--) {
+            LockedAccount locked = lockedAccounts.get(i);
+            if (committed) {
+                for (Change change : locked.changes) {
+                    locked.account.appendLocked(change.entryType, change.amount, change.counterpartyAccountId);
+                }
+            }
+            locked.account.unlockBalance(locked.lockedBalance, committed ? locked.balance : locked.lockedBalance);
+        }
+        lockedAccounts.clear();
+        byAccount.clear();
+    }
+
+    private static final class LockedAccount {
+
+        private final Account account;
+        private final long lockedBalance;
+        private final List<Change> changes = new ArrayList<>(2);
+        private long balance;
+
+        LockedAccount(Account account, long lockedBalance) {
+            this.account = account;
+            this.lockedBalance = lockedBalance;
+            this.balance = lockedBalance;
+        }
+
+        void change(LedgerEntryType entryType, long amount, long counterpartyAccountId) {
+            balance = Math.addExact(balance, amount);
+            changes.add(new Change(entryType, amount, counterpartyAccountId));
+        }
+    }
+
+    private static final class Change {
+
+        private final LedgerEntryType entryType;
+        private final long amount;
+        private final long counterpartyAccountId;
+
+        Change(LedgerEntryType entryType, long amount, long counterpartyAccountId) {
+            this.entryType = entryType;
+            this.amount = amount;
+            this.counterpartyAccountId = counterpartyAccountId;
+        }
+    }
+}
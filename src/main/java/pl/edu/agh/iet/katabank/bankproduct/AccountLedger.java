@@ -0,0 +1,282 @@
+package pl.edu.agh.iet.katabank.bankproduct;
+
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only history of the balance changes of one {@link Account}. Entries are kept in chunks
+ * of primitive columns: a millisecond offset from the chunk's base time, the signed amount in
+ * minor units, the entry type and the counterparty of transfers, about 21 bytes per entry.
+ * <p>
+ * Every chunk remembers the balance before its first entry, which serves as a checkpoint: the
+ * balance at a given time is found by a binary search for the chunk and a fold of at most
+ * {@value #CHUNK_SIZE} amounts, independent of the length of the history. Timestamps come from
+ * the clock the ledger was created with and never go backwards within a ledger.
+ * <p>
+ * The account changes its balance while holding the ledger's lock and appends the entry before
+ * releasing it, so entries are in the order the changes were applied. Credits of a hot account
+ * do not take the lock: they are queued before they are applied and moved into the ledger by
+ * whoever holds the lock next, ahead of its own entry, so a debit is always listed after the
+ * credits it may have spent. Until a queued credit is applied the ledger is ahead of the balance.
+ * <p>
+ * A ledger of an account restored with a balance, e.g. from a journal, starts with that balance
+ * and reports it for any time before its first entry.
+ */
+public final class AccountLedger {
+
+    private static final int CHUNK_SIZE = 256;
+    private static final int INITIAL_CHUNK_CAPACITY = 8;
+    private static final LedgerEntryType[] TYPES = LedgerEntryType.values();
+
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<PendingEntry> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final List<Chunk> chunks = new ArrayList<>(1);
+    private final long openingBalance;
+    private long balance;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private int size;
+
+    AccountLedger(Clock clock, long openingBalance) {
+        this.clock = clock;
+        this.openingBalance = openingBalance;
+        this.balance = openingBalance;
+    }
+
+    boolean tryLock() {
+        return lock.tryLock();
+    }
+
+    void lock() {
+        lock.lock();
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Appends an entry for a change just applied; the caller holds the lock.
+     */
+    void append(LedgerEntryType type, long amount, long counterpartyAccountId) {
+        appendPendingEntries();
+        appendEntry(clock.millis(), type, amount, counterpartyAccountId);
+    }
+
+    /**
+     * Queues an entry for a credit about to be applied without the lock, and moves the queued
+     * entries into the ledger if the lock happens to be free.
+     */
+    void appendLater(LedgerEntryType type, long amount, long counterpartyAccountId) {
+        pendingEntries.add(new PendingEntry(clock.millis(), type, amount, counterpartyAccountId));
+        if (lock.tryLock()) {
+            try {
+                appendPendingEntries();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void appendPendingEntries() {
+        PendingEntry entry;
+        while ((entry = pendingEntries.poll()) != null) {
+            appendEntry(entry.timestamp, entry.type, entry.amount, entry.counterpartyAccountId);
+        }
+    }
+
+    private void appendEntry(long millis, LedgerEntryType type, long amount, long counterpartyAccountId) {
+        long timestamp = Math.max(millis, lastTimestamp);
+        Chunk chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.size == CHUNK_SIZE || timestamp - chunk.baseTimestamp > Integer.MAX_VALUE) {
+            chunk = new Chunk(size, timestamp, balance);
+            chunks.add(chunk);
+        }
+        chunk.add(timestamp, amount, type, counterpartyAccountId);
+        balance += amount;
+        lastTimestamp = timestamp;
+        size++;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            appendPendingEntries();
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LedgerEntry getEntry(int index) {
+        lock.lock();
+        try {
+            appendPendingEntries();
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            int low = 0;
+            int high = chunks.size() - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (chunks.get(middle).firstIndex <= index) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            Chunk chunk = chunks.get(low);
+            return chunk.entry(index - chunk.firstIndex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Entries stamped from {@code from} inclusive to {@code to} exclusive, oldest first.
+     */
+    public List<LedgerEntry> getEntries(Instant from, Instant to) {
+        lock.lock();
+        try {
+            appendPendingEntries();
+            List<LedgerEntry> entries = new ArrayList<>();
+            long fromMillis = from.toEpochMilli();
+            long toMillis = to.toEpochMilli();
+            for (int chunkIndex = Math.max(0, chunkAt(fromMillis - 1)); chunkIndex < chunks.size(); chunkIndex++) {
+                Chunk chunk = chunks.get(chunkIndex);
+                for (int i = 0; i < chunk.size; i++) {
+                    long timestamp = chunk.timestamp(i);
+                    if (timestamp >= toMillis) {
+                        return entries;
+                    }
+                    if (timestamp >= fromMillis) {
+                        entries.add(chunk.entry(i));
+                    }
+                }
+            }
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Balance after all entries stamped at or before the given instant.
+     */
+    public BigDecimal getBalanceAt(Instant instant) {
+        lock.lock();
+        try {
+            appendPendingEntries();
+            long millis = instant.toEpochMilli();
+            int chunkIndex = chunkAt(millis);
+            if (chunkIndex < 0) {
+                return Money.toBigDecimal(openingBalance);
+            }
+            Chunk chunk = chunks.get(chunkIndex);
+            long balanceAt = chunk.openingBalance;
+            for (int i = 0; i < chunk.size && chunk.timestamp(i) <= millis; i++) {
+                balanceAt += chunk.amounts[i];
+            }
+            return Money.toBigDecimal(balanceAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Balance at the end of the given day in the given time zone.
+     */
+    public BigDecimal getBalanceAt(LocalDate date, ZoneId zone) {
+        Instant startOfNextDay = date.plusDays(1).atStartOfDay(zone).toInstant();
+        return getBalanceAt(startOfNextDay.minusMillis(1));
+    }
+
+    /**
+     * Index of the last chunk starting at or before the given time, or -1 if there is none.
+     */
+    private int chunkAt(long millis) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (chunks.get(middle).baseTimestamp <= millis) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    private static final class PendingEntry {
+
+        private final long timestamp;
+        private final LedgerEntryType type;
+        private final long amount;
+        private final long counterpartyAccountId;
+
+        PendingEntry(long timestamp, LedgerEntryType type, long amount, long counterpartyAccountId) {
+            this.timestamp = timestamp;
+            this.type = type;
+            this.amount = amount;
+            this.counterpartyAccountId = counterpartyAccountId;
+        }
+    }
+
+    private static final class Chunk {
+
+        private final int firstIndex;
+        private final long baseTimestamp;
+        private final long openingBalance;
+        private int[] timestampOffsets;
+        private long[] amounts;
+        private byte[] types;
+        private long[] counterparties;
+        private int size;
+
+        Chunk(int firstIndex, long baseTimestamp, long openingBalance) {
+            this.firstIndex = firstIndex;
+            this.baseTimestamp = baseTimestamp;
+            this.openingBalance = openingBalance;
+            this.timestampOffsets = new int[INITIAL_CHUNK_CAPACITY];
+            this.amounts = new long[INITIAL_CHUNK_CAPACITY];
+            this.types = new byte[INITIAL_CHUNK_CAPACITY];
+            this.counterparties = new long[INITIAL_CHUNK_CAPACITY];
+        }
+
+        void add(long timestamp, long amount, LedgerEntryType type, long counterpartyAccountId) {
+            if (size == amounts.length) {
+                int capacity = Math.min(CHUNK_SIZE, size * 2);
+                timestampOffsets = Arrays.copyOf(timestampOffsets, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                types = Arrays.copyOf(types, capacity);
+                counterparties = Arrays.copyOf(counterparties, capacity);
+            }
+            timestampOffsets[size] = (int) (timestamp - baseTimestamp);
+            amounts[size] = amount;
+            types[size] = (byte) type.ordinal();
+            counterparties[size] = counterpartyAccountId;
+            size++;
+        }
+
+        long timestamp(int i) {
+            return baseTimestamp + timestampOffsets[i];
+        }
+
+        LedgerEntry entry(int i) {
+            return new LedgerEntry(Instant.ofEpochMilli(timestamp(i)), TYPES[types[i]],
+                    Money.toBigDecimal(amounts[i]), counterparties[i]);
+        }
+    }
+}
@@ -1,18 +1,21 @@
 package pl.edu.agh.iet.katabank.bankproduct;
 
 import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment;
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money;
 import pl.edu.agh.iet.katabank.bankproduct.amount.Payment;
 import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
 import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.id.Identifiers;
+import pl.edu.agh.iet.katabank.metrics.BankMetrics;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.UUID;
 
 public class Deposit implements BankProduct {
 
@@ -21,32 +24,61 @@ public class Deposit implements BankProduct {
     private static final String CANNOT_ADD_PAYMENT_TO_CLOSED_DEPOSIT = "Cannot add payment to closed deposit";
     private static final String PAYMENT_DATE_BEFORE_DEPOSIT_OPEN_DATE = "Payment's date is before deposit open date.";
 
-    private Map<Payment, InterestPolicy> payments;
+    @FunctionalInterface
+    public interface PaymentVisitor {
+        void visit(BigDecimal amount, LocalDate paymentDate, InterestPolicy interestPolicy);
+    }
+
+    private final PaymentColumns payments = new PaymentColumns();
+    private volatile BigDecimal principal = BigDecimal.ZERO;
     private Account connectedAccount;
-    private final UUID id;
+    private final long id;
     private final LocalDate openDate;
     private final DepositDurationDetails durationDetails;
-    private boolean open;
+    private final LocalDate closeDate;
+    private volatile boolean open;
 
     public Deposit(Account connectedAccount, Payment initialPayment, DepositDurationDetails durationDetails, InterestPolicy interestPolicy) {
-        this.id = UUID.randomUUID();
-        this.payments = new LinkedHashMap<>();
-        this.payments.put(initialPayment, interestPolicy);
+        this(Identifiers.nextId(), connectedAccount, initialPayment, durationDetails, interestPolicy);
+    }
+
+    public Deposit(long id, Account connectedAccount, Payment initialPayment, DepositDurationDetails durationDetails, InterestPolicy interestPolicy) {
+        this.id = id;
         this.connectedAccount = connectedAccount;
         this.openDate = initialPayment.getPaymentDate();
         this.durationDetails = durationDetails;
+        this.closeDate = durationDetails.calculateCloseDate(this.openDate);
         this.open = true;
+        recordPayment(initialPayment, interestPolicy);
+    }
+
+    public Deposit(long id, Account connectedAccount, Map<Payment, InterestPolicy> payments, DepositDurationDetails durationDetails, boolean open) {
+        this.id = id;
+        this.connectedAccount = connectedAccount;
+        this.openDate = payments.keySet().iterator().next().getPaymentDate();
+        this.durationDetails = durationDetails;
+        this.closeDate = durationDetails.calculateCloseDate(this.openDate);
+        this.open = open;
+        payments.forEach(this::recordPayment);
+        if (!open) {
+            this.principal = BigDecimal.ZERO;
+        }
+    }
+
+    public long getId() {
+        return this.id;
     }
 
     public Account getConnectedAccount() {
         return this.connectedAccount;
     }
 
+    /**
+     * Running principal kept up to date by {@link #addPayment}, so reading it does not
+     * walk the payments.
+     */
     public BigDecimal getBalance() {
-        if (!isOpen()) {
-            return BigDecimal.ZERO;
-        }
-        return payments.keySet().stream().map(Payment::getPaymentAmount).reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
+        return this.principal;
     }
 
     public LocalDate getOpenDate() {
@@ -57,8 +89,12 @@ public class Deposit implements BankProduct {
         return this.open;
     }
 
+    public DepositDurationDetails getDurationDetails() {
+        return this.durationDetails;
+    }
+
     public LocalDate getCloseDate() {
-        return this.durationDetails.calculateCloseDate(this.openDate);
+        return this.closeDate;
     }
 
     @Override
@@ -71,52 +107,134 @@ public class Deposit implements BankProduct {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Deposit deposit = (Deposit) o;
-        return Objects.equals(id, deposit.id);
+        return id == deposit.id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Long.hashCode(id);
     }
 
-    public void closeDeposit(final LocalDate date) {
+    public synchronized void closeDeposit(final LocalDate date) {
         if (!isOpen()) {
             throw new RuntimeException(CANNOT_CLOSE_ALREADY_CLOSED_DEPOSIT_MESSAGE);
         }
+        long startTime = BankMetrics.startTimer();
         BigDecimal closeBalanceWithInterest = calculateWholeBalanceOnClose(date);
         depositCloseBalanceWithInterestToConnectedAccount(closeBalanceWithInterest);
+        this.principal = BigDecimal.ZERO;
         this.open = false;
+        BankMetrics.increment(BankMetrics.Counter.DEPOSITS_CLOSED);
+        BankMetrics.stopTimer(BankMetrics.Timer.CLOSE_DEPOSIT, startTime);
     }
 
     private void depositCloseBalanceWithInterestToConnectedAccount(BigDecimal closeBalanceWithInterest) {
-        this.connectedAccount.deposit(closeBalanceWithInterest);
+        this.connectedAccount.deposit(Money.of(closeBalanceWithInterest));
+    }
+
+    /**
+     * Interest earned by the given date according to the policies of the payments, see
+     * {@link InterestPolicy#calculateAccruedInterest}; zero once the deposit is closed.
+     */
+    public synchronized BigDecimal calculateAccruedInterest(final LocalDate date) {
+        if (!isOpen()) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal accruedInterest = BigDecimal.ZERO;
+        for (int row = 0; row < payments.size(); row++) {
+            accruedInterest = accruedInterest.add(payments.policy(row)
+                    .calculateAccruedInterest(payments.amount(row), payments.date(row), date, this.closeDate));
+        }
+        return accruedInterest;
+    }
+
+    /**
+     * Passes every payment to the visitor, in the order the payments were made, without
+     * materializing them.
+     */
+    public synchronized void forEachPayment(PaymentVisitor visitor) {
+        for (int row = 0; row < payments.size(); row++) {
+            visitor.visit(payments.amount(row), payments.date(row), payments.policy(row));
+        }
     }
 
     private BigDecimal calculateWholeBalanceOnClose(final LocalDate date) {
-        return payments.entrySet().stream().map(paymentEntry ->
-                calculateBalanceWithInterest(paymentEntry.getKey().getPaymentAmount(), paymentEntry.getValue()
-                        .calculateInterest(paymentEntry.getKey().getPaymentAmount(),
-                                paymentEntry.getKey().getPaymentDate(), date, this.getCloseDate())))
-                .reduce(BigDecimal::add)
-                .orElseThrow(() -> new RuntimeException(ERROR_WHILE_COUNTING_BALANCE_ON_CLOSE));
+        if (payments.size() == 0) {
+            throw new RuntimeException(ERROR_WHILE_COUNTING_BALANCE_ON_CLOSE);
+        }
+        return this.principal.add(calculateInterest(date));
     }
 
-    private BigDecimal calculateBalanceWithInterest(BigDecimal startBalance, BigDecimal interestBalance) {
-        return startBalance.add(interestBalance);
+    /**
+     * Payments are grouped by interest policy, so each policy calculates interest
+     * for all of its payments in one batch.
+     */
+    private BigDecimal calculateInterest(final LocalDate date) {
+        int[] paymentCounts = new int[payments.policyCount()];
+        for (int row = 0; row < payments.size(); row++) {
+            paymentCounts[payments.policyIndex(row)]++;
+        }
+        LocalDate closeDate = this.getCloseDate();
+        BigDecimal wholeInterest = BigDecimal.ZERO;
+        for (int policyIndex = 0; policyIndex < paymentCounts.length; policyIndex++) {
+            if (paymentCounts[policyIndex] == 0) {
+                continue;
+            }
+            BigDecimal[] amounts = new BigDecimal[paymentCounts[policyIndex]];
+            LocalDate[] paymentDates = new LocalDate[paymentCounts[policyIndex]];
+            for (int row = 0, i = 0; i < amounts.length; row++) {
+                if (payments.policyIndex(row) == policyIndex) {
+                    amounts[i] = payments.amount(row);
+                    paymentDates[i++] = payments.date(row);
+                }
+            }
+            BigDecimal[] interests = payments.policyAt(policyIndex).calculateInterests(amounts, paymentDates, date, closeDate);
+            for (BigDecimal interest : interests) {
+                wholeInterest = wholeInterest.add(interest);
+            }
+        }
+        return wholeInterest;
     }
 
-    public void addPayment(Payment payment, InterestPolicy interestPolicy) {
+    public synchronized void addPayment(Payment payment, InterestPolicy interestPolicy) {
         if (!isOpen()) throw new RuntimeException(CANNOT_ADD_PAYMENT_TO_CLOSED_DEPOSIT);
         if (payment.getPaymentDate().isBefore(this.openDate))
             throw new RuntimeException(PAYMENT_DATE_BEFORE_DEPOSIT_OPEN_DATE);
-        payments.put(payment, interestPolicy);
+        recordPayment(payment, interestPolicy);
+    }
+
+    /**
+     * A payment added again only replaces its policy, so its amount is not counted twice.
+     * Payments are told apart by the id of a {@link DepositPayment}; any other payment is
+     * always appended.
+     */
+    private void recordPayment(Payment payment, InterestPolicy interestPolicy) {
+        long paymentId = payment instanceof DepositPayment ? ((DepositPayment) payment).getId() : Identifiers.nextId();
+        if (payments.put(paymentId, payment.getPaymentAmount(), payment.getPaymentDate(), interestPolicy) == null) {
+            principal = principal.add(payment.getPaymentAmount());
+        }
+    }
+
+    /**
+     * Payments in the order they were made. The map is built from the payment columns on every
+     * call, with payments equal to the ones that were added.
+     */
+    public synchronized Map<Payment, InterestPolicy> getPayments() {
+        Map<Payment, InterestPolicy> paymentsMap = new LinkedHashMap<>();
+        for (int row = 0; row < payments.size(); row++) {
+            paymentsMap.put(new DepositPayment(payments.id(row), payments.amount(row), payments.date(row)), payments.policy(row));
+        }
+        return Collections.unmodifiableMap(paymentsMap);
     }
 
-    public List<BigDecimal> getInterestRates() {
-        List<BigDecimal> interestRates = new LinkedList<>();
-        for (InterestPolicy policy : payments.values()) {
-            interestRates.add(policy.getYearlyInterestRatePercent());
+    /**
+     * Yearly interest rates of the payments in the order they were made, as of this call.
+     */
+    public synchronized List<BigDecimal> getInterestRates() {
+        List<BigDecimal> interestRates = new ArrayList<>(payments.size());
+        for (int row = 0; row < payments.size(); row++) {
+            interestRates.add(payments.policy(row).getYearlyInterestRatePercent());
         }
-        return interestRates;
+        return Collections.unmodifiableList(interestRates);
     }
 }
@@ -0,0 +1,52 @@
+package pl.edu.agh.iet.katabank.bankproduct;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public final class LedgerEntry {
+
+    /**
+     * Counterparty of entries which are not transfers.
+     */
+    public static final long NO_COUNTERPARTY = 0;
+
+    private final Instant timestamp;
+    private final LedgerEntryType type;
+    private final BigDecimal amount;
+    private final long counterpartyAccountId;
+
+    LedgerEntry(Instant timestamp, LedgerEntryType type, BigDecimal amount, long counterpartyAccountId) {
+        this.timestamp = timestamp;
+        this.type = type;
+        this.amount = amount;
+        this.counterpartyAccountId = counterpartyAccountId;
+    }
+
+    public Instant getTimestamp() {
+        return this.timestamp;
+    }
+
+    public LedgerEntryType getType() {
+        return this.type;
+    }
+
+    /**
+     * Change of the balance: positive for credits, negative for debits.
+     */
+    public BigDecimal getAmount() {
+        return this.amount;
+    }
+
+    /**
+     * Id of the other account of a transfer, otherwise {@link #NO_COUNTERPARTY}.
+     */
+    public long getCounterpartyAccountId() {
+        return this.counterpartyAccountId;
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + " " + type + " " + amount
+                + (counterpartyAccountId == NO_COUNTERPARTY ? "" : " " + counterpartyAccountId);
+    }
+}
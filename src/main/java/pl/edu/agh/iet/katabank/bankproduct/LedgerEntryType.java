@@ -0,0 +1,12 @@
+package pl.edu.agh.iet.katabank.bankproduct;
+
+public enum LedgerEntryType {
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER_IN,
+    TRANSFER_OUT,
+    /**
+     * Balance overwritten with {@link Account#setBalance}, e.g. when restoring from a journal.
+     */
+    ADJUSTMENT
+}
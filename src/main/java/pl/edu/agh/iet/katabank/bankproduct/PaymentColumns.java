@@ -0,0 +1,191 @@
+package pl.edu.agh.iet.katabank.bankproduct;
+
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy.MONEY_SCALE;
+
+/**
+ * Payments of a single deposit kept in primitive columns, in insertion order. Amounts are stored
+ * as minor units together with their original scale, so they are read back exactly as paid in;
+ * the rare amount with sub-cent digits, or too large for a {@code long}, is kept aside as a
+ * {@link BigDecimal}. Policies are stored once in a table and referenced by index.
+ */
+final class PaymentColumns {
+
+    private static final String TOO_MANY_POLICIES_MESSAGE = "Too many distinct interest policies in one deposit.";
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] minorUnits = new long[INITIAL_CAPACITY];
+    private byte[] scales = new byte[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private short[] policyIndexes = new short[INITIAL_CAPACITY];
+    private final List<InterestPolicy> policies = new ArrayList<>(1);
+    private Map<Integer, BigDecimal> exactAmounts;
+    private int[] idIndex;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a payment, or only replaces the policy of the payment with the same id.
+     *
+     * @return the replaced policy, or {@code null} if the payment was appended
+     */
+    InterestPolicy put(long id, BigDecimal amount, LocalDate date, InterestPolicy policy) {
+        short policyIndex = policyIndexOf(policy);
+        int row = find(id);
+        if (row >= 0) {
+            InterestPolicy previousPolicy = policies.get(policyIndexes[row]);
+            policyIndexes[row] = policyIndex;
+            return previousPolicy;
+        }
+        if (size == minorUnits.length) {
+            grow();
+        }
+        row = size++;
+        ids[row] = id;
+        epochDays[row] = Math.toIntExact(date.toEpochDay());
+        policyIndexes[row] = policyIndex;
+        storeAmount(row, amount);
+        if (idIndex != null) {
+            index(row);
+        } else if (size > LINEAR_SEARCH_LIMIT) {
+            rebuildIndex(minorUnits.length * 2);
+        }
+        return null;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    BigDecimal amount(int row) {
+        if (exactAmounts != null) {
+            BigDecimal exactAmount = exactAmounts.get(row);
+            if (exactAmount != null) {
+                return exactAmount;
+            }
+        }
+        return BigDecimal.valueOf(minorUnits[row], MONEY_SCALE).setScale(scales[row]);
+    }
+
+    LocalDate date(int row) {
+        return LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    InterestPolicy policy(int row) {
+        return policies.get(policyIndexes[row]);
+    }
+
+    int policyIndex(int row) {
+        return policyIndexes[row];
+    }
+
+    int policyCount() {
+        return policies.size();
+    }
+
+    InterestPolicy policyAt(int policyIndex) {
+        return policies.get(policyIndex);
+    }
+
+    /**
+     * Equal policies share one slot, so policies which did not go through the product catalog,
+     * e.g. ones read back from the journal, do not grow the table with every payment.
+     */
+    private short policyIndexOf(InterestPolicy policy) {
+        for (int i = 0; i < policies.size(); i++) {
+            InterestPolicy storedPolicy = policies.get(i);
+            if (storedPolicy == policy || storedPolicy.equals(policy)) {
+                return (short) i;
+            }
+        }
+        if (policies.size() > Short.MAX_VALUE) {
+            throw new IllegalStateException(TOO_MANY_POLICIES_MESSAGE);
+        }
+        policies.add(policy);
+        return (short) (policies.size() - 1);
+    }
+
+    private void storeAmount(int row, BigDecimal amount) {
+        int scale = amount.scale();
+        if (scale >= Byte.MIN_VALUE && scale <= Byte.MAX_VALUE) {
+            BigDecimal shifted = amount.movePointRight(MONEY_SCALE);
+            BigDecimal integral = shifted.setScale(0, RoundingMode.DOWN);
+            if (integral.compareTo(shifted) == 0 && integral.unscaledValue().bitLength() < Long.SIZE) {
+                minorUnits[row] = integral.longValue();
+                scales[row] = (byte) scale;
+                return;
+            }
+        }
+        if (exactAmounts == null) {
+            exactAmounts = new HashMap<>();
+        }
+        exactAmounts.put(row, amount);
+    }
+
+    private int find(long id) {
+        if (idIndex == null) {
+            for (int row = 0; row < size; row++) {
+                if (ids[row] == id) {
+                    return row;
+                }
+            }
+            return -1;
+        }
+        int mask = idIndex.length - 1;
+        for (int slot = slot(id, mask); idIndex[slot] != 0; slot = (slot + 1) & mask) {
+            int row = idIndex[slot] - 1;
+            if (ids[row] == id) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = minorUnits.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        minorUnits = Arrays.copyOf(minorUnits, capacity);
+        scales = Arrays.copyOf(scales, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        policyIndexes = Arrays.copyOf(policyIndexes, capacity);
+        if (idIndex != null) {
+            rebuildIndex(capacity * 2);
+        }
+    }
+
+    private void rebuildIndex(int slots) {
+        idIndex = new int[slots];
+        for (int row = 0; row < size; row++) {
+            index(row);
+        }
+    }
+
+    private void index(int row) {
+        int mask = idIndex.length - 1;
+        int slot = slot(ids[row], mask);
+        while (idIndex[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        idIndex[slot] = row + 1;
+    }
+
+    private static int slot(long id, int mask) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
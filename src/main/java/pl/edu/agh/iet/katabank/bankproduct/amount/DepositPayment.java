@@ -1,22 +1,30 @@
 package pl.edu.agh.iet.katabank.bankproduct.amount;
 
+import pl.edu.agh.iet.katabank.id.Identifiers;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.Objects;
-import java.util.UUID;
 
 public class DepositPayment implements Payment {
 
-    private final UUID id;
+    private final long id;
     private final BigDecimal paymentAmount;
     private final LocalDate paymentDate;
 
     public DepositPayment(BigDecimal paymentAmount, LocalDate paymentDate) {
-        this.id = UUID.randomUUID();
+        this(Identifiers.nextId(), paymentAmount, paymentDate);
+    }
+
+    public DepositPayment(long id, BigDecimal paymentAmount, LocalDate paymentDate) {
+        this.id = id;
         this.paymentAmount = paymentAmount;
         this.paymentDate = paymentDate;
     }
 
+    public long getId() {
+        return this.id;
+    }
+
     @Override
     public BigDecimal getPaymentAmount() {
         return this.paymentAmount;
@@ -32,12 +40,11 @@ public class DepositPayment implements Payment {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DepositPayment that = (DepositPayment) o;
-        return Objects.equals(id, that.id);
+        return id == that.id;
     }
 
     @Override
     public int hashCode() {
-
-        return Objects.hash(id);
+        return Long.hashCode(id);
     }
 }
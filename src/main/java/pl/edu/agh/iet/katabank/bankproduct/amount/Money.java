@@ -0,0 +1,93 @@
+package pl.edu.agh.iet.katabank.bankproduct.amount;
+
+import java.math.BigDecimal;
+
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy.MONEY_SCALE;
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy.ROUNDING_MODE;
+
+/**
+ * Amount of money held as a {@code long} number of minor units, i.e. at {@link
+ * pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy#MONEY_SCALE}.
+ * Arithmetic is exact and fails with {@link ArithmeticException} on overflow.
+ * Conversion from {@link BigDecimal} rounds with the policies' rounding mode.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money of(BigDecimal amount) {
+        return ofMinorUnits(toMinorUnits(amount));
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(MONEY_SCALE, ROUNDING_MODE).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Whether the amount has no digits below the minor unit, so that converting it loses nothing.
+     */
+    public static boolean isExact(BigDecimal amount) {
+        return amount.scale() <= MONEY_SCALE || amount.stripTrailingZeros().scale() <= MONEY_SCALE;
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, MONEY_SCALE);
+    }
+
+    public long getMinorUnits() {
+        return this.minorUnits;
+    }
+
+    public Money add(Money other) {
+        return ofMinorUnits(Math.addExact(this.minorUnits, other.minorUnits));
+    }
+
+    public Money subtract(Money other) {
+        return ofMinorUnits(Math.subtractExact(this.minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinorUnits(Math.negateExact(this.minorUnits));
+    }
+
+    public int signum() {
+        return Long.signum(this.minorUnits);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(this.minorUnits);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(this.minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
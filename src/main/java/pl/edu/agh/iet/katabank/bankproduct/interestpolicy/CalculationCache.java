@@ -0,0 +1,68 @@
+package pl.edu.agh.iet.katabank.bankproduct.interestpolicy;
+
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.math.BigDecimal;
+import java.util.function.IntFunction;
+
+/**
+ * Shared, size-bounded memo of interest rate multipliers, which are recalculated for many
+ * deposits, keyed by policy value and duration. The maximum size of each cache can be set with the {@code katabank.calculationCache.maximumSize}
+ * system property.
+ * <p>
+ * Multipliers are kept per policy instance, holding the policy weakly, so the cache never keeps
+ * alive a policy which {@link ProductCatalog} would otherwise drop. Equal policies share the
+ * multipliers of the instance interned in the catalog.
+ */
+public final class CalculationCache {
+
+    private static final long MAXIMUM_SIZE = Long.getLong("katabank.calculationCache.maximumSize", 10000);
+
+    private static final Cache<InterestPolicy, Cache<Integer, BigDecimal>> MULTIPLIERS =
+            CacheBuilder.newBuilder().weakKeys().maximumSize(MAXIMUM_SIZE).build();
+    private static final AbstractCache.StatsCounter MULTIPLIER_STATS = new AbstractCache.SimpleStatsCounter();
+
+    private CalculationCache() {
+    }
+
+    public static CacheStats multiplierStats() {
+        return MULTIPLIER_STATS.snapshot();
+    }
+
+    public static void invalidateAll() {
+        MULTIPLIERS.invalidateAll();
+    }
+
+    static BigDecimal interestRateMultiplier(InterestPolicy policy, int duration, IntFunction<BigDecimal> calculation) {
+        Cache<Integer, BigDecimal> multipliers = MULTIPLIERS.getIfPresent(policy);
+        if (multipliers == null) {
+            multipliers = multipliersOf(policy);
+        }
+        BigDecimal multiplier = multipliers.getIfPresent(duration);
+        if (multiplier == null) {
+            MULTIPLIER_STATS.recordMisses(1);
+            multiplier = calculation.apply(duration);
+            multipliers.put(duration, multiplier);
+        } else {
+            MULTIPLIER_STATS.recordHits(1);
+        }
+        return multiplier;
+    }
+
+    /**
+     * Multipliers of the interned policy, also registered under the given instance so that
+     * the next lookup with it is a single identity lookup.
+     */
+    private static Cache<Integer, BigDecimal> multipliersOf(InterestPolicy policy) {
+        InterestPolicy internedPolicy = ProductCatalog.intern(policy);
+        Cache<Integer, BigDecimal> multipliers = MULTIPLIERS.asMap().computeIfAbsent(internedPolicy,
+                key -> CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build());
+        if (internedPolicy != policy) {
+            MULTIPLIERS.put(policy, multipliers);
+        }
+        return multipliers;
+    }
+}
@@ -4,11 +4,13 @@ package pl.edu.agh.iet.katabank.bankproduct.interestpolicy;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
 
 public class DailyInterestPolicyWithInsurance implements InterestPolicy {
 
-    private BigDecimal yearlyInterestRatePercent;
-    private BigDecimal insuranceCostPercent;
+    private final BigDecimal yearlyInterestRatePercent;
+    private final BigDecimal insuranceCostPercent;
 
     public DailyInterestPolicyWithInsurance(BigDecimal yearlyInterestRatePercent, BigDecimal insuranceCostPercent) {
         this.yearlyInterestRatePercent = yearlyInterestRatePercent;
@@ -20,13 +22,54 @@ public class DailyInterestPolicyWithInsurance implements InterestPolicy {
         return this.yearlyInterestRatePercent;
     }
 
+    public BigDecimal getInsuranceCostPercent() {
+        return this.insuranceCostPercent;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DailyInterestPolicyWithInsurance that = (DailyInterestPolicyWithInsurance) o;
+        return yearlyInterestRatePercent.compareTo(that.yearlyInterestRatePercent) == 0
+                && insuranceCostPercent.compareTo(that.insuranceCostPercent) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * yearlyInterestRatePercent.stripTrailingZeros().hashCode()
+                + insuranceCostPercent.stripTrailingZeros().hashCode();
+    }
+
     @Override
     public BigDecimal calculateInterest(BigDecimal amount, LocalDate openDate, LocalDate calculationDate, LocalDate plannedTerminationDate) {
         int depositDuration = getDuration(openDate, actualClosingDate(plannedTerminationDate, calculationDate));
-        return (amount.multiply(calculateInterestRateMultiplier(depositDuration))).setScale(MONEY_SCALE, ROUNDING_MODE);
+        return calculateInterest(amount, calculateInterestRateMultiplier(depositDuration));
+    }
+
+    @Override
+    public BigDecimal[] calculateInterests(BigDecimal[] amounts, LocalDate[] paymentDates,
+                                           LocalDate calculationDate, LocalDate plannedTerminationDate) {
+        BigDecimal[] interests = new BigDecimal[amounts.length];
+        LocalDate actualClosingDate = actualClosingDate(plannedTerminationDate, calculationDate);
+        Map<Integer, BigDecimal> multipliers = new HashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            BigDecimal multiplier = multipliers.computeIfAbsent(getDuration(paymentDates[i], actualClosingDate),
+                    this::calculateInterestRateMultiplier);
+            interests[i] = calculateInterest(amounts[i], multiplier);
+        }
+        return interests;
+    }
+
+    private BigDecimal calculateInterest(BigDecimal amount, BigDecimal interestRateMultiplier) {
+        return (amount.multiply(interestRateMultiplier)).setScale(MONEY_SCALE, ROUNDING_MODE);
     }
 
     private BigDecimal calculateInterestRateMultiplier(int depositDuration) {
+        return CalculationCache.interestRateMultiplier(this, depositDuration, this::computeInterestRateMultiplier);
+    }
+
+    private BigDecimal computeInterestRateMultiplier(int depositDuration) {
         return yearlyInterestRatePercent.divide(ONE_HUNDRED_PERCENT, CALCULATION_SCALE, ROUNDING_MODE)
                 .multiply(new BigDecimal(depositDuration)).divide(DAYS_IN_YEAR, CALCULATION_SCALE, ROUNDING_MODE);
     }
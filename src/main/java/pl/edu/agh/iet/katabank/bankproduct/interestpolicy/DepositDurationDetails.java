@@ -1,6 +1,7 @@
 package pl.edu.agh.iet.katabank.bankproduct.interestpolicy;
 
 import java.time.LocalDate;
+import java.util.Objects;
 
 public class DepositDurationDetails {
 
@@ -13,6 +14,27 @@ public class DepositDurationDetails {
         this.durationType = durationType;
     }
 
+    public int getDuration() {
+        return this.duration;
+    }
+
+    public DurationType getDurationType() {
+        return this.durationType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DepositDurationDetails that = (DepositDurationDetails) o;
+        return duration == that.duration && durationType == that.durationType;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * duration + Objects.hashCode(durationType);
+    }
+
     public LocalDate calculateCloseDate(LocalDate openDate) {
         switch (durationType) {
             case DAYS:
@@ -19,5 +19,32 @@ public interface InterestPolicy {
 
     BigDecimal calculateInterest(BigDecimal amount, LocalDate openDate, LocalDate calculationDate, LocalDate plannedTerminationDate);
 
+    /**
+     * Calculates interest for many payments sharing this policy and termination date in one pass;
+     * {@code interests[i]} is the interest on {@code amounts[i]} paid on {@code paymentDates[i]}.
+     */
+    default BigDecimal[] calculateInterests(BigDecimal[] amounts, LocalDate[] paymentDates,
+                                            LocalDate calculationDate, LocalDate plannedTerminationDate) {
+        BigDecimal[] interests = new BigDecimal[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            interests[i] = calculateInterest(amounts[i], paymentDates[i], calculationDate, plannedTerminationDate);
+        }
+        return interests;
+    }
+
+    /**
+     * Interest earned by the valuation date on an amount paid on the payment date, whether or not
+     * it would be paid out if the deposit were closed then. From the planned termination date on
+     * it equals the interest paid on close. By default interest is taken to accrue the way
+     * {@link #calculateInterest} pays it on an early close.
+     */
+    default BigDecimal calculateAccruedInterest(BigDecimal amount, LocalDate paymentDate,
+                                                LocalDate valuationDate, LocalDate plannedTerminationDate) {
+        if (valuationDate.isBefore(paymentDate)) {
+            return BigDecimal.ZERO;
+        }
+        return calculateInterest(amount, paymentDate, valuationDate, plannedTerminationDate);
+    }
+
     BigDecimal preProcessAmount(BigDecimal amount);
 }
@@ -2,12 +2,16 @@ package pl.edu.agh.iet.katabank.bankproduct.interestpolicy;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import static java.math.BigDecimal.ZERO;
 
 public class MonthlyInterestPolicy implements InterestPolicy {
 
-    private BigDecimal yearlyInterestRatePercent;
+    private final BigDecimal yearlyInterestRatePercent;
 
     public MonthlyInterestPolicy(BigDecimal yearlyInterestRatePercent) {
         this.yearlyInterestRatePercent = yearlyInterestRatePercent;
@@ -18,19 +22,74 @@ public class MonthlyInterestPolicy implements InterestPolicy {
         return this.yearlyInterestRatePercent;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MonthlyInterestPolicy that = (MonthlyInterestPolicy) o;
+        return yearlyInterestRatePercent.compareTo(that.yearlyInterestRatePercent) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return yearlyInterestRatePercent.stripTrailingZeros().hashCode();
+    }
+
     @Override
     public BigDecimal calculateInterest(BigDecimal amount, LocalDate openDate, LocalDate calculationDate, LocalDate plannedTerminationDate) {
         if (calculationDate.isBefore(plannedTerminationDate)) {
             return ZERO;
         }
         int depositDuration = getDuration(openDate, plannedTerminationDate);
-        return (amount.multiply(calculateInterestRateMultiplier(depositDuration))).setScale(MONEY_SCALE, ROUNDING_MODE);
+        return calculateInterest(amount, calculateInterestRateMultiplier(depositDuration));
+    }
+
+    @Override
+    public BigDecimal[] calculateInterests(BigDecimal[] amounts, LocalDate[] paymentDates,
+                                           LocalDate calculationDate, LocalDate plannedTerminationDate) {
+        BigDecimal[] interests = new BigDecimal[amounts.length];
+        if (calculationDate.isBefore(plannedTerminationDate)) {
+            Arrays.fill(interests, ZERO);
+            return interests;
+        }
+        Map<Integer, BigDecimal> multipliers = new HashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            BigDecimal multiplier = multipliers.computeIfAbsent(getDuration(paymentDates[i], plannedTerminationDate),
+                    this::calculateInterestRateMultiplier);
+            interests[i] = calculateInterest(amounts[i], multiplier);
+        }
+        return interests;
+    }
+
+    /**
+     * Interest accrues for every full month since the payment, although it is paid out only
+     * when the deposit is closed on or after the planned termination date.
+     */
+    @Override
+    public BigDecimal calculateAccruedInterest(BigDecimal amount, LocalDate paymentDate,
+                                               LocalDate valuationDate, LocalDate plannedTerminationDate) {
+        if (!valuationDate.isBefore(plannedTerminationDate)) {
+            return calculateInterest(amount, paymentDate, plannedTerminationDate, plannedTerminationDate);
+        }
+        long fullMonths = ChronoUnit.MONTHS.between(paymentDate, valuationDate);
+        if (fullMonths <= 0) {
+            return ZERO;
+        }
+        return calculateInterest(amount, calculateInterestRateMultiplier((int) fullMonths));
+    }
+
+    private BigDecimal calculateInterest(BigDecimal amount, BigDecimal interestRateMultiplier) {
+        return (amount.multiply(interestRateMultiplier)).setScale(MONEY_SCALE, ROUNDING_MODE);
     }
 
     @Override
     public BigDecimal preProcessAmount(BigDecimal amount) { return amount; }
 
     private BigDecimal calculateInterestRateMultiplier(int duration) {
+        return CalculationCache.interestRateMultiplier(this, duration, this::computeInterestRateMultiplier);
+    }
+
+    private BigDecimal computeInterestRateMultiplier(int duration) {
         return yearlyInterestRatePercent.divide(ONE_HUNDRED_PERCENT, CALCULATION_SCALE, ROUNDING_MODE)
                 .multiply(new BigDecimal(duration).divide(TWELVE_MONTHS, CALCULATION_SCALE, ROUNDING_MODE));
     }
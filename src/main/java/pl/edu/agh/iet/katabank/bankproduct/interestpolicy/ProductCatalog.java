@@ -0,0 +1,26 @@
+package pl.edu.agh.iet.katabank.bankproduct.interestpolicy;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Registry of the distinct interest policies and deposit durations in use. Equal values are
+ * interned to a single shared instance, so deposits of the same product share one policy and
+ * one duration object. Instances are held weakly and dropped once no deposit refers to them.
+ */
+public final class ProductCatalog {
+
+    private static final Interner<InterestPolicy> INTEREST_POLICIES = Interners.newWeakInterner();
+    private static final Interner<DepositDurationDetails> DURATION_DETAILS = Interners.newWeakInterner();
+
+    private ProductCatalog() {
+    }
+
+    public static InterestPolicy intern(InterestPolicy interestPolicy) {
+        return INTEREST_POLICIES.intern(interestPolicy);
+    }
+
+    public static DepositDurationDetails intern(DepositDurationDetails durationDetails) {
+        return DURATION_DETAILS.intern(durationDetails);
+    }
+}
@@ -0,0 +1,20 @@
+package pl.edu.agh.iet.katabank.engine;
+
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Applies balance changes to accounts on behalf of {@link pl.edu.agh.iet.katabank.Bank}.
+ * Ownership has already been checked by the bank; an engine only decides where and how the
+ * change is executed. Each method returns once the change has been applied, or throws the
+ * exception the account raised, e.g. for insufficient funds.
+ */
+public interface AccountEngine {
+
+    void deposit(Account account, BigDecimal amount);
+
+    void withdraw(Account account, BigDecimal amount);
+
+    void transfer(Account sourceAccount, Account targetAccount, BigDecimal amount);
+}
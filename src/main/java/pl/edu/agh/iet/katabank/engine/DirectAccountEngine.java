@@ -0,0 +1,32 @@
+package pl.edu.agh.iet.katabank.engine;
+
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Default engine: every change runs on the calling thread, racing callers being resolved inside
+ * {@link Account}.
+ */
+public final class DirectAccountEngine implements AccountEngine {
+
+    public static final DirectAccountEngine INSTANCE = new DirectAccountEngine();
+
+    private DirectAccountEngine() {
+    }
+
+    @Override
+    public void deposit(Account account, BigDecimal amount) {
+        account.deposit(amount);
+    }
+
+    @Override
+    public void withdraw(Account account, BigDecimal amount) {
+        account.withdraw(amount);
+    }
+
+    @Override
+    public void transfer(Account sourceAccount, Account targetAccount, BigDecimal amount) {
+        sourceAccount.transfer(targetAccount, amount);
+    }
+}
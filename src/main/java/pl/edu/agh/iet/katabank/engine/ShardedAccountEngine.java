@@ -0,0 +1,215 @@
+package pl.edu.agh.iet.katabank.engine;
+
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Engine in which every account is owned by exactly one shard thread, chosen by the account id.
+ * Callers post commands to the owning shard's mailbox and wait for them to be applied; a shard
+ * drains its mailbox in batches and is the only thread changing the balances of its accounts,
+ * so their updates never contend and the balances stay in one core's cache.
+ * <p>
+ * A transfer is two messages: the source shard debits the source account and, if that
+ * succeeded, posts the credit to the target shard, which completes the transfer. The money is
+ * never visible on both accounts at once and a failed debit leaves the target untouched. Both
+ * legs are recorded as a transfer with its counterparty in the accounts' ledgers, if any.
+ * <p>
+ * Balance changes made outside the engine, e.g. batches or closing deposits, remain correct as
+ * they still go through the account's atomic updates, they just do not benefit from the shard.
+ */
+public class ShardedAccountEngine implements AccountEngine, Closeable {
+
+    private static final String ENGINE_CLOSED_MESSAGE = "Account engine is closed.";
+    private static final String NULL_TARGET_MESSAGE = "Target account cannot be null.";
+    private static final int BATCH_SIZE = 256;
+    private static final long CLOSE_POLL_NANOS = 100_000;
+
+    private final Shard[] shards;
+    private final AtomicLong pendingCommands = new AtomicLong();
+    private volatile boolean closed;
+
+    public ShardedAccountEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedAccountEngine(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Incorrect number of shards: " + shardCount);
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard("katabank-shard-" + i);
+            shards[i].start();
+        }
+    }
+
+    @Override
+    public void deposit(Account account, BigDecimal amount) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        post(shardOf(account), () -> {
+            account.deposit(amount);
+            done.complete(null);
+        }, done);
+        await(done);
+    }
+
+    @Override
+    public void withdraw(Account account, BigDecimal amount) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        post(shardOf(account), () -> {
+            account.withdraw(amount);
+            done.complete(null);
+        }, done);
+        await(done);
+    }
+
+    @Override
+    public void transfer(Account sourceAccount, Account targetAccount, BigDecimal amount) {
+        if (targetAccount == null) {
+            throw new RuntimeException(NULL_TARGET_MESSAGE);
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Shard targetShard = shardOf(targetAccount);
+        post(shardOf(sourceAccount), () -> {
+            sourceAccount.debitTransfer(targetAccount, amount);
+            Runnable credit = () -> {
+                targetAccount.creditTransfer(sourceAccount, amount);
+                done.complete(null);
+            };
+            if (targetShard == Thread.currentThread()) {
+                credit.run();
+            } else {
+                enqueue(targetShard, credit, done);
+            }
+        }, done);
+        await(done);
+    }
+
+    /**
+     * Lets the shards apply the commands already posted, including the credits of transfers
+     * in progress, and stops them.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        while (pendingCommands.get() > 0) {
+            LockSupport.parkNanos(CLOSE_POLL_NANOS);
+        }
+        for (Shard shard : shards) {
+            shard.mailbox.add(Shard.STOP);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Shard shardOf(Account account) {
+        long hash = account.getId() * 0x9E3779B97F4A7C15L;
+        return shards[(int) ((hash >>> 32) % shards.length)];
+    }
+
+    private void post(Shard shard, Runnable command, CompletableFuture<Void> done) {
+        pendingCommands.incrementAndGet();
+        if (closed) {
+            pendingCommands.decrementAndGet();
+            throw new IllegalStateException(ENGINE_CLOSED_MESSAGE);
+        }
+        shard.mailbox.add(new Command(command, done));
+    }
+
+    /**
+     * Posts a command on behalf of a command still running, which keeps the engine open for it.
+     */
+    private void enqueue(Shard shard, Runnable command, CompletableFuture<Void> done) {
+        pendingCommands.incrementAndGet();
+        shard.mailbox.add(new Command(command, done));
+    }
+
+    private static void await(CompletableFuture<Void> done) {
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Completes the caller's future with whatever the action throws, errors included, so the
+     * caller never waits forever and the shard goes on with its next command.
+     */
+    private final class Command implements Runnable {
+
+        private final Runnable action;
+        private final CompletableFuture<Void> done;
+
+        Command(Runnable action, CompletableFuture<Void> done) {
+            this.action = action;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                action.run();
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            } finally {
+                pendingCommands.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Shard extends Thread {
+
+        static final Runnable STOP = () -> {
+        };
+
+        private final BlockingQueue<Runnable> mailbox = new LinkedBlockingQueue<>();
+
+        Shard(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Runnable> batch = new ArrayList<>(BATCH_SIZE);
+            while (true) {
+                try {
+                    batch.add(mailbox.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                mailbox.drainTo(batch, BATCH_SIZE - 1);
+                for (Runnable command : batch) {
+                    if (command == STOP) {
+                        return;
+                    }
+                    command.run();
+                }
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package pl.edu.agh.iet.katabank.id;
+
+/**
+ * Source of unique 64-bit identifiers for customers, bank products and payments.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    long nextId();
+}
@@ -0,0 +1,22 @@
+package pl.edu.agh.iet.katabank.id;
+
+/**
+ * Generator used when customers, bank products and payments are created without an explicit id.
+ * Defaults to a {@link SnowflakeIdGenerator} for node 0; the node can be set with the
+ * {@code katabank.id.node} system property, or the generator replaced as a whole.
+ */
+public final class Identifiers {
+
+    private static volatile IdGenerator generator = new SnowflakeIdGenerator(Integer.getInteger("katabank.id.node", 0));
+
+    private Identifiers() {
+    }
+
+    public static long nextId() {
+        return generator.nextId();
+    }
+
+    public static void setGenerator(IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+}
@@ -0,0 +1,71 @@
+package pl.edu.agh.iet.katabank.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered identifiers built from a millisecond timestamp, a node number, a shard number
+ * and a per-millisecond sequence:
+ * <pre>
+ * | 41 bits: ms since 2018-01-01 | 4 bits: node | 6 bits: shard | 12 bits: sequence |
+ * </pre>
+ * Each thread draws from the shard picked by its id, so threads rarely compete for the same
+ * counter. A shard that runs out of sequence numbers moves on to the next millisecond instead of
+ * waiting for the clock, and a clock moving backwards never makes a shard go back in time.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    public static final long EPOCH = Instant.parse("2018-01-01T00:00:00Z").toEpochMilli();
+
+    static final int SEQUENCE_BITS = 12;
+    static final int SHARD_BITS = 6;
+    static final int NODE_BITS = 4;
+    static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private static final String WRONG_NODE_MESSAGE = "Node must be between 0 and " + MAX_NODE + ": ";
+    private static final int SHARDS = 1 << SHARD_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    private final AtomicLong[] shards = new AtomicLong[SHARDS];
+
+    public SnowflakeIdGenerator() {
+        this(0);
+    }
+
+    public SnowflakeIdGenerator(int node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(int node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException(WRONG_NODE_MESSAGE + node);
+        }
+        this.node = node;
+        this.clock = clock;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new AtomicLong();
+        }
+    }
+
+    @Override
+    public long nextId() {
+        int shard = (int) Thread.currentThread().getId() & (SHARDS - 1);
+        AtomicLong state = shards[shard];
+        long timestamp = clock.getAsLong() - EPOCH;
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = Math.max(current + 1, timestamp << SEQUENCE_BITS);
+        } while (!state.compareAndSet(current, next));
+        long sequence = next & SEQUENCE_MASK;
+        long elapsed = next >>> SEQUENCE_BITS;
+        return elapsed << (NODE_BITS + SHARD_BITS + SEQUENCE_BITS)
+                | node << (SHARD_BITS + SEQUENCE_BITS)
+                | (long) shard << SEQUENCE_BITS
+                | sequence;
+    }
+}
@@ -0,0 +1,102 @@
+package pl.edu.agh.iet.katabank.journal;
+
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DailyInterestPolicyWithInsurance;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.ProductCatalog;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+/**
+ * Binary encoding of the values stored in journal records. Amounts are written as a scale byte
+ * followed by the unscaled value, which takes 8 bytes unless it does not fit into a {@code long}.
+ */
+final class JournalCodec {
+
+    private static final int LONG_LENGTH = 8;
+    private static final byte MONTHLY_POLICY = 1;
+    private static final byte DAILY_POLICY_WITH_INSURANCE = 2;
+
+    private JournalCodec() {
+    }
+
+    static void putId(ByteBuffer buffer, long id) {
+        buffer.putLong(id);
+    }
+
+    static long getId(ByteBuffer buffer) {
+        return buffer.getLong();
+    }
+
+    static void putAmount(ByteBuffer buffer, BigDecimal amount) {
+        int scale = amount.scale();
+        if (scale < Byte.MIN_VALUE || scale > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Amount scale out of range: " + amount);
+        }
+        buffer.put((byte) scale);
+        BigInteger unscaled = amount.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            buffer.put((byte) LONG_LENGTH).putLong(unscaled.longValue());
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            buffer.put((byte) bytes.length).put(bytes);
+        }
+    }
+
+    static BigDecimal getAmount(ByteBuffer buffer) {
+        int scale = buffer.get();
+        int length = buffer.get() & 0xFF;
+        if (length == LONG_LENGTH) {
+            return BigDecimal.valueOf(buffer.getLong(), scale);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    static void putDate(ByteBuffer buffer, LocalDate date) {
+        buffer.putInt((int) date.toEpochDay());
+    }
+
+    static LocalDate getDate(ByteBuffer buffer) {
+        return LocalDate.ofEpochDay(buffer.getInt());
+    }
+
+    static void putDurationDetails(ByteBuffer buffer, DepositDurationDetails durationDetails) {
+        buffer.putInt(durationDetails.getDuration()).put((byte) durationDetails.getDurationType().ordinal());
+    }
+
+    static DepositDurationDetails getDurationDetails(ByteBuffer buffer) {
+        int duration = buffer.getInt();
+        return ProductCatalog.intern(new DepositDurationDetails(duration, DepositDurationDetails.DurationType.values()[buffer.get()]));
+    }
+
+    static void putPolicy(ByteBuffer buffer, InterestPolicy policy) {
+        if (policy instanceof MonthlyInterestPolicy) {
+            buffer.put(MONTHLY_POLICY);
+            putAmount(buffer, policy.getYearlyInterestRatePercent());
+        } else if (policy instanceof DailyInterestPolicyWithInsurance) {
+            buffer.put(DAILY_POLICY_WITH_INSURANCE);
+            putAmount(buffer, policy.getYearlyInterestRatePercent());
+            putAmount(buffer, ((DailyInterestPolicyWithInsurance) policy).getInsuranceCostPercent());
+        } else {
+            throw new IllegalArgumentException("Unsupported interest policy: " + policy.getClass().getName());
+        }
+    }
+
+    static InterestPolicy getPolicy(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case MONTHLY_POLICY:
+                return ProductCatalog.intern(new MonthlyInterestPolicy(getAmount(buffer)));
+            case DAILY_POLICY_WITH_INSURANCE:
+                BigDecimal yearlyInterestRatePercent = getAmount(buffer);
+                return ProductCatalog.intern(new DailyInterestPolicyWithInsurance(yearlyInterestRatePercent, getAmount(buffer)));
+        }
+        throw new IllegalStateException("Unknown interest policy type: " + type);
+    }
+}
@@ -0,0 +1,59 @@
+package pl.edu.agh.iet.katabank.journal;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically folds sealed journal segments into a new snapshot. The state is rebuilt from the
+ * previous snapshot and the journal rather than read from live accounts, so writers are never
+ * stopped and every snapshot is exact as of the end of the last segment it covers. The newest
+ * segment is skipped because the journal may still be appending to it.
+ */
+public class JournalCompactor implements Closeable {
+
+    private final Path journalDirectory;
+    private final SnapshotStore snapshotStore;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "katabank-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JournalCompactor(Path journalDirectory, SnapshotStore snapshotStore) {
+        this.journalDirectory = journalDirectory;
+        this.snapshotStore = snapshotStore;
+    }
+
+    public void start(long period, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(this::compact, period, period, unit);
+    }
+
+    /**
+     * Writes a new snapshot if any segment has been sealed since the previous one.
+     *
+     * @return {@code true} if a snapshot was written
+     */
+    public boolean compact() {
+        List<Path> segments = JournalSegments.listSegments(journalDirectory);
+        if (segments.size() < 2) {
+            return false;
+        }
+        long lastSealedSegment = JournalSegments.segmentIndex(segments.get(segments.size() - 2));
+        JournalReplayer state = snapshotStore.loadLatest();
+        if (state.getLastSegmentIndex() >= lastSealedSegment) {
+            return false;
+        }
+        state.replay(journalDirectory, lastSealedSegment);
+        snapshotStore.write(state);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,226 @@
+package pl.edu.agh.iet.katabank.journal;
+
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment;
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.getAmount;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.getDate;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.getDurationDetails;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.getId;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.getPolicy;
+import static pl.edu.agh.iet.katabank.journal.JournalSegments.MAGIC;
+import static pl.edu.agh.iet.katabank.journal.JournalSegments.RECORD_HEADER_SIZE;
+
+/**
+ * Rebuilds customers, accounts and deposits by replaying journal segments in order.
+ * Replay is incremental: segments up to {@link #getLastSegmentIndex()} are never replayed again,
+ * so a replayer loaded from a snapshot only reads the segments written after it.
+ * <p>
+ * Balance changes are applied as plain additions and subtractions without the funds check:
+ * operations running concurrently on one account may reach the journal in a different order
+ * than they were applied, and only their sum is guaranteed to be meaningful. Replayed accounts
+ * therefore keep no ledger; the repository gets accounts restored with their final balance and,
+ * like accounts the bank opens, without a ledger.
+ */
+public class JournalReplayer {
+
+    private final Map<Long, Customer> customers = new HashMap<>();
+    private final Map<Long, Account> accounts = new LinkedHashMap<>();
+    private final Map<Long, Deposit> deposits = new LinkedHashMap<>();
+    private long lastSegmentIndex = -1;
+
+    public static void recover(Path directory, BankProductsRepository repository) {
+        JournalReplayer replayer = new JournalReplayer();
+        replayer.replay(directory);
+        replayer.populate(repository);
+    }
+
+    /**
+     * Loads the newest snapshot and replays only the segments written after it.
+     */
+    public static void recover(Path directory, SnapshotStore snapshotStore, BankProductsRepository repository) {
+        JournalReplayer replayer = snapshotStore.loadLatest();
+        replayer.replay(directory);
+        replayer.populate(repository);
+    }
+
+    public void replay(Path directory) {
+        replay(directory, Long.MAX_VALUE);
+    }
+
+    /**
+     * Replays segments up to the given index. The newest segment of the directory ends at its
+     * first torn or corrupt record, as left by a crash; such a record in an older, sealed segment
+     * is an error.
+     */
+    public void replay(Path directory, long toSegmentIndex) {
+        List<Path> segments = JournalSegments.listSegments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            long index = JournalSegments.segmentIndex(segment);
+            if (index > lastSegmentIndex && index <= toSegmentIndex) {
+                replaySegment(segment, i == segments.size() - 1);
+                lastSegmentIndex = index;
+            }
+        }
+    }
+
+    public long getLastSegmentIndex() {
+        return this.lastSegmentIndex;
+    }
+
+    /**
+     * Adds the replayed accounts and deposits to the repository. Deposits are connected to the
+     * accounts as the repository stores them, so closing a deposit afterwards credits the
+     * account the bank works with.
+     */
+    public void populate(BankProductsRepository repository) {
+        Map<Long, Account> storedAccounts = new HashMap<>();
+        accounts.forEach((id, account) -> storedAccounts.put(id,
+                repository.addAccount(Account.restore(account.getOwner(), id, account.getMoneyBalance()))));
+        for (Deposit deposit : deposits.values()) {
+            Account storedAccount = storedAccounts.get(deposit.getConnectedAccount().getId());
+            repository.addDeposit(new Deposit(deposit.getId(), storedAccount, deposit.getPayments(),
+                    deposit.getDurationDetails(), deposit.isOpen()));
+        }
+    }
+
+    Map<Long, Customer> getCustomers() {
+        return this.customers;
+    }
+
+    Map<Long, Account> getAccounts() {
+        return this.accounts;
+    }
+
+    /**
+     * Account of the replayed state, with a balance but without a ledger.
+     */
+    static Account replayedAccount(Customer owner, long id, BigDecimal balance) {
+        ReplayedAccount account = new ReplayedAccount(owner, id);
+        account.add(balance);
+        return account;
+    }
+
+    Map<Long, Deposit> getDeposits() {
+        return this.deposits;
+    }
+
+    void setLastSegmentIndex(long lastSegmentIndex) {
+        this.lastSegmentIndex = lastSegmentIndex;
+    }
+
+    private void replaySegment(Path segment, boolean newestSegment) {
+        try (FileChannel channel = FileChannel.open(segment, READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalStateException("Not a journal segment: " + segment);
+            }
+            int length;
+            while ((length = JournalSegments.recordLength(buffer)) > 0) {
+                int next = buffer.position() + RECORD_HEADER_SIZE + length;
+                buffer.position(buffer.position() + RECORD_HEADER_SIZE);
+                apply(RecordType.fromCode(buffer.get()), buffer);
+                buffer.position(next);
+            }
+            if (length == JournalSegments.INVALID_RECORD && !newestSegment) {
+                throw new IllegalStateException("Corrupt record in sealed journal segment: " + segment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void apply(RecordType type, ByteBuffer buffer) {
+        switch (type) {
+            case ACCOUNT_OPENED:
+                Customer owner = customers.computeIfAbsent(getId(buffer), Customer::new);
+                long accountId = getId(buffer);
+                accounts.put(accountId, new ReplayedAccount(owner, accountId));
+                break;
+            case DEPOSITED:
+                credit(account(getId(buffer)), getAmount(buffer));
+                break;
+            case WITHDRAWN:
+                debit(account(getId(buffer)), getAmount(buffer));
+                break;
+            case TRANSFERRED:
+                ReplayedAccount account = account(getId(buffer));
+                ReplayedAccount targetAccount = account(getId(buffer));
+                BigDecimal amount = getAmount(buffer);
+                debit(account, amount);
+                credit(targetAccount, amount);
+                break;
+            case DEPOSIT_OPENED:
+                openDeposit(buffer);
+                break;
+            case DEPOSIT_CLOSED:
+                Deposit deposit = deposits.get(getId(buffer));
+                if (deposit == null) {
+                    throw new IllegalStateException("Journal closes an unknown deposit.");
+                }
+                deposit.closeDeposit(getDate(buffer));
+                break;
+        }
+    }
+
+    private void openDeposit(ByteBuffer buffer) {
+        long depositId = getId(buffer);
+        ReplayedAccount account = account(getId(buffer));
+        BigDecimal withdrawnAmount = getAmount(buffer);
+        BigDecimal paymentAmount = getAmount(buffer);
+        LocalDate openDate = getDate(buffer);
+        DepositDurationDetails durationDetails = getDurationDetails(buffer);
+        InterestPolicy interestPolicy = getPolicy(buffer);
+        debit(account, withdrawnAmount);
+        deposits.put(depositId, new Deposit(depositId, account,
+                new DepositPayment(paymentAmount, openDate), durationDetails, interestPolicy));
+    }
+
+    private ReplayedAccount account(long id) {
+        Account account = accounts.get(id);
+        if (account == null) {
+            throw new IllegalStateException("Journal references an unknown account: " + id);
+        }
+        return (ReplayedAccount) account;
+    }
+
+    private static void credit(ReplayedAccount account, BigDecimal amount) {
+        account.add(amount);
+    }
+
+    private static void debit(ReplayedAccount account, BigDecimal amount) {
+        account.add(amount.negate());
+    }
+
+    private static final class ReplayedAccount extends Account {
+
+        ReplayedAccount(Customer owner, long id) {
+            super(owner, id, new AtomicLong());
+        }
+
+        void add(BigDecimal amount) {
+            storeBalance(Math.addExact(loadBalance(), Money.toMinorUnits(amount)));
+        }
+    }
+}
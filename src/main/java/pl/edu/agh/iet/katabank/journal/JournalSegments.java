@@ -0,0 +1,88 @@
+package pl.edu.agh.iet.katabank.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Naming and layout of journal segment files. Every segment starts with {@link #MAGIC}
+ * followed by records of the form {@code [int length][int crc][byte type][payload]}, where the
+ * length and the CRC-32 cover the type and payload. A zero length marks the end of the written
+ * part of a segment; a record with an impossible length or a wrong checksum is what a write
+ * torn by a crash leaves behind.
+ */
+final class JournalSegments {
+
+    static final int MAGIC = 0x4B424A33;
+    static final int HEADER_SIZE = Integer.BYTES;
+    static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    static final int END_OF_RECORDS = 0;
+    static final int INVALID_RECORD = -1;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    private JournalSegments() {
+    }
+
+    static Path segmentPath(Path directory, long index) {
+        return directory.resolve(String.format("%s%010d%s", PREFIX, index, SUFFIX));
+    }
+
+    static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Length of the payload of the record at the buffer's position, {@link #END_OF_RECORDS} at
+     * the end of the written part, or {@link #INVALID_RECORD} for a torn or corrupt record.
+     * The position of the buffer is not changed.
+     */
+    static int recordLength(ByteBuffer buffer) {
+        int position = buffer.position();
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return END_OF_RECORDS;
+        }
+        int length = buffer.getInt(position);
+        if (length == 0) {
+            return END_OF_RECORDS;
+        }
+        if (length < 0 || length > buffer.remaining() - RECORD_HEADER_SIZE) {
+            return INVALID_RECORD;
+        }
+        int checksum = buffer.getInt(position + Integer.BYTES);
+        return checksum(buffer, position + RECORD_HEADER_SIZE, length) == checksum ? length : INVALID_RECORD;
+    }
+
+    static int checksum(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer record = buffer.duplicate();
+        record.limit(offset + length).position(offset);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    static List<Path> listSegments(Path directory) {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+}
@@ -0,0 +1,385 @@
+package pl.edu.agh.iet.katabank.journal;
+
+import pl.edu.agh.iet.katabank.BankEventListener;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.putAmount;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.putDate;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.putDurationDetails;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.putId;
+import static pl.edu.agh.iet.katabank.journal.JournalCodec.putPolicy;
+import static pl.edu.agh.iet.katabank.journal.JournalSegments.HEADER_SIZE;
+import static pl.edu.agh.iet.katabank.journal.JournalSegments.MAGIC;
+import static pl.edu.agh.iet.katabank.journal.JournalSegments.RECORD_HEADER_SIZE;
+
+/**
+ * Append-only journal of bank events, written to memory-mapped segment files.
+ * <p>
+ * The journal is a redo log of applied operations, not a write-ahead log. As a
+ * {@link BankEventListener} it records an operation after the bank has applied it, so it holds
+ * only operations which succeeded and replay never has to check funds or ownership again. The
+ * guarantee is therefore after the fact: with {@code awaitFlush} enabled a bank operation returns
+ * only once its record is durable, so an operation whose call has returned survives a crash,
+ * while a crash between applying an operation and journaling it loses that operation, although
+ * other threads may already have seen its effect on balances.
+ * <p>
+ * Records are encoded outside of any lock and copied into the current segment under a short
+ * append lock. A single flusher thread forces segments to disk; all records appended while
+ * a force is in progress are made durable by the next one, so concurrent writers share fsyncs.
+ * With {@code awaitFlush} enabled every event returns only once its record is durable.
+ * <p>
+ * If forcing a segment fails, the journal stops: writers waiting for the flush, and every later
+ * append or {@link #sync()}, throw an {@link IllegalStateException} caused by the failure, as
+ * records appended after it can no longer be made durable.
+ */
+public class MappedSegmentJournal implements BankEventListener, Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int INITIAL_RECORD_CAPACITY = 256;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean awaitFlush;
+    private final Object appendLock = new Object();
+    private final Object flushMonitor = new Object();
+    private final Thread flusher;
+    private final ThreadLocal<ByteBuffer> recordBuffers =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_RECORD_CAPACITY));
+
+    private Segment segment;
+    private volatile long writtenSequence;
+    private volatile long flushedSequence;
+    private volatile boolean closed;
+    private volatile Throwable flushFailure;
+
+    public MappedSegmentJournal(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, true);
+    }
+
+    public MappedSegmentJournal(Path directory, int segmentSize, boolean awaitFlush) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.awaitFlush = awaitFlush;
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = JournalSegments.listSegments(directory);
+            this.segment = segments.isEmpty()
+                    ? Segment.create(directory, 0, segmentSize)
+                    : Segment.reopen(segments.get(segments.size() - 1), segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.flusher = new Thread(this::flushLoop, "katabank-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public void accountOpened(Account account) {
+        append(RecordType.ACCOUNT_OPENED, buffer -> {
+            putId(buffer, account.getOwner().getId());
+            putId(buffer, account.getId());
+        });
+    }
+
+    @Override
+    public void deposited(Account account, BigDecimal amount) {
+        append(RecordType.DEPOSITED, buffer -> {
+            putId(buffer, account.getId());
+            putAmount(buffer, amount);
+        });
+    }
+
+    @Override
+    public void withdrawn(Account account, BigDecimal amount) {
+        append(RecordType.WITHDRAWN, buffer -> {
+            putId(buffer, account.getId());
+            putAmount(buffer, amount);
+        });
+    }
+
+    @Override
+    public void transferred(Account account, Account targetAccount, BigDecimal amount) {
+        append(RecordType.TRANSFERRED, buffer -> {
+            putId(buffer, account.getId());
+            putId(buffer, targetAccount.getId());
+            putAmount(buffer, amount);
+        });
+    }
+
+    @Override
+    public void depositOpened(Deposit deposit, BigDecimal withdrawnAmount,
+                              DepositDurationDetails durationDetails, InterestPolicy interestPolicy) {
+        append(RecordType.DEPOSIT_OPENED, buffer -> {
+            putId(buffer, deposit.getId());
+            putId(buffer, deposit.getConnectedAccount().getId());
+            putAmount(buffer, withdrawnAmount);
+            putAmount(buffer, deposit.getBalance());
+            putDate(buffer, deposit.getOpenDate());
+            putDurationDetails(buffer, durationDetails);
+            putPolicy(buffer, interestPolicy);
+        });
+    }
+
+    @Override
+    public void depositClosed(Deposit deposit, LocalDate closeDate) {
+        append(RecordType.DEPOSIT_CLOSED, buffer -> {
+            putId(buffer, deposit.getId());
+            putDate(buffer, closeDate);
+        });
+    }
+
+    /**
+     * Blocks until every record appended so far is durable.
+     */
+    public void sync() {
+        awaitFlushed(writtenSequence);
+    }
+
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (appendLock) {
+            try {
+                if (flushFailure == null) {
+                    forceSegment(segment);
+                }
+            } finally {
+                segment.close();
+            }
+        }
+        synchronized (flushMonitor) {
+            if (flushFailure == null) {
+                flushedSequence = writtenSequence;
+            }
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private void append(RecordType type, Consumer<ByteBuffer> payloadWriter) {
+        ByteBuffer record = encode(type, payloadWriter);
+        int checksum = JournalSegments.checksum(record, 0, record.remaining());
+        long sequence;
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed.");
+            }
+            checkNotFailed();
+            if (segment.buffer.remaining() < RECORD_HEADER_SIZE + record.remaining()) {
+                roll();
+            }
+            segment.buffer.putInt(record.remaining()).putInt(checksum).put(record);
+            sequence = ++writtenSequence;
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        if (awaitFlush) {
+            awaitFlushed(sequence);
+        }
+    }
+
+    private ByteBuffer encode(RecordType type, Consumer<ByteBuffer> payloadWriter) {
+        ByteBuffer record = recordBuffers.get();
+        while (true) {
+            record.clear();
+            try {
+                record.put(type.getCode());
+                payloadWriter.accept(record);
+                record.flip();
+                return record;
+            } catch (BufferOverflowException e) {
+                record = ByteBuffer.allocate(record.capacity() * 2);
+                recordBuffers.set(record);
+            }
+        }
+    }
+
+    private void roll() {
+        if (segment.buffer.position() == HEADER_SIZE) {
+            throw new IllegalArgumentException("Journal record does not fit into a segment of " + segmentSize + " bytes.");
+        }
+        forceSegment(segment);
+        segment.close();
+        try {
+            segment = Segment.create(directory, segment.index + 1, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void awaitFlushed(long sequence) {
+        synchronized (flushMonitor) {
+            boolean interrupted = false;
+            while (flushedSequence < sequence && flushFailure == null) {
+                try {
+                    flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (flushedSequence < sequence) {
+                checkNotFailed();
+            }
+        }
+    }
+
+    private void checkNotFailed() {
+        Throwable failure = flushFailure;
+        if (failure != null) {
+            throw new IllegalStateException("Journal could not be flushed.", failure);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            synchronized (flushMonitor) {
+                while (!closed && flushedSequence >= writtenSequence) {
+                    try {
+                        flushMonitor.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            long target;
+            Segment current;
+            synchronized (appendLock) {
+                target = writtenSequence;
+                current = segment;
+            }
+            try {
+                forceSegment(current);
+            } catch (RuntimeException | Error e) {
+                return;
+            }
+            synchronized (flushMonitor) {
+                flushedSequence = target;
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Forces the segment, or records the failure and wakes the writers waiting for a flush.
+     */
+    private void forceSegment(Segment current) {
+        try {
+            force(current.buffer);
+        } catch (RuntimeException | Error e) {
+            synchronized (flushMonitor) {
+                if (flushFailure == null) {
+                    flushFailure = e;
+                }
+                flushMonitor.notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Makes the written part of a segment durable; tests override it to inject failures.
+     */
+    void force(MappedByteBuffer buffer) {
+        buffer.force();
+    }
+
+    private static final class Segment {
+
+        private final long index;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long index, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path directory, long index, int segmentSize) throws IOException {
+            FileChannel channel = FileChannel.open(JournalSegments.segmentPath(directory, index), CREATE, READ, WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putInt(MAGIC);
+            return new Segment(index, channel, buffer);
+        }
+
+        /**
+         * Positions the segment after its last valid record. Anything after it, such as a record
+         * torn by a crash, is zeroed, so new records are never followed by stale bytes.
+         */
+        static Segment reopen(Path path, int segmentSize) throws IOException {
+            FileChannel channel = FileChannel.open(path, READ, WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalStateException("Not a journal segment: " + path);
+            }
+            int length;
+            while ((length = JournalSegments.recordLength(buffer)) > 0) {
+                buffer.position(buffer.position() + RECORD_HEADER_SIZE + length);
+            }
+            if (length == JournalSegments.INVALID_RECORD) {
+                truncate(buffer);
+            }
+            return new Segment(JournalSegments.segmentIndex(path), channel, buffer);
+        }
+
+        private static void truncate(MappedByteBuffer buffer) {
+            int offset = buffer.position();
+            for (; offset + Long.BYTES <= buffer.limit(); offset += Long.BYTES) {
+                buffer.putLong(offset, 0);
+            }
+            for (; offset < buffer.limit(); offset++) {
+                buffer.put(offset, (byte) 0);
+            }
+            buffer.force();
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
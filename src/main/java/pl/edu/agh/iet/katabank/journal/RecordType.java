@@ -0,0 +1,36 @@
+package pl.edu.agh.iet.katabank.journal;
+
+enum RecordType {
+
+    ACCOUNT_OPENED(1),
+    DEPOSITED(2),
+    WITHDRAWN(3),
+    TRANSFERRED(4),
+    DEPOSIT_OPENED(5),
+    DEPOSIT_CLOSED(6);
+
+    private static final RecordType[] BY_CODE = new RecordType[7];
+
+    static {
+        for (RecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    RecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    byte getCode() {
+        return this.code;
+    }
+
+    static RecordType fromCode(byte code) {
+        if (code <= 0 || code >= BY_CODE.length) {
+            throw new IllegalStateException("Unknown journal record type: " + code);
+        }
+        return BY_CODE[code];
+    }
+}
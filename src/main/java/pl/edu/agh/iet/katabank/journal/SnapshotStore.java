@@ -0,0 +1,340 @@
+package pl.edu.agh.iet.katabank.journal;
+
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment;
+import pl.edu.agh.iet.katabank.bankproduct.amount.Payment;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Point-in-time snapshots of replayed journal state. A snapshot named after the last journal
+ * segment it covers is written column by column: all customer ids, then all account ids, owners
+ * and balances, then the distinct interest policies, deposits and their payments.
+ */
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x4B425332;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_VALUE_SIZE = 512;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path write(JournalReplayer state) {
+        Path snapshot = directory.resolve(String.format("%s%010d%s", PREFIX, state.getLastSegmentIndex(), SUFFIX));
+        Path temporary = directory.resolve(snapshot.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (Output output = new Output(FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING))) {
+                writeState(output, state);
+            }
+            Files.move(temporary, snapshot, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the state stored in the newest snapshot, or an empty replayer if there is none.
+     */
+    public JournalReplayer loadLatest() {
+        List<Path> snapshots = listSnapshots();
+        if (snapshots.isEmpty()) {
+            return new JournalReplayer();
+        }
+        try (Input input = new Input(FileChannel.open(snapshots.get(snapshots.size() - 1), READ))) {
+            return readState(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Path> listSnapshots() {
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path snapshot : stream) {
+                snapshots.add(snapshot);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Collections.sort(snapshots);
+        return snapshots;
+    }
+
+    private static void writeState(Output output, JournalReplayer state) throws IOException {
+        output.ensure(Integer.BYTES + Long.BYTES).putInt(MAGIC).putLong(state.getLastSegmentIndex());
+
+        List<Customer> customers = new ArrayList<>(state.getCustomers().values());
+        Map<Customer, Integer> customerIndexes = new HashMap<>();
+        output.putCount(customers.size());
+        for (Customer customer : customers) {
+            customerIndexes.put(customer, customerIndexes.size());
+            output.ensure(Long.BYTES).putLong(customer.getId());
+        }
+
+        List<Account> accounts = new ArrayList<>(state.getAccounts().values());
+        Map<Account, Integer> accountIndexes = new HashMap<>();
+        output.putCount(accounts.size());
+        for (Account account : accounts) {
+            accountIndexes.put(account, accountIndexes.size());
+            output.ensure(Long.BYTES).putLong(account.getId());
+        }
+        for (Account account : accounts) {
+            output.ensure(Integer.BYTES).putInt(customerIndexes.get(account.getOwner()));
+        }
+        for (Account account : accounts) {
+            JournalCodec.putAmount(output.ensure(MAX_VALUE_SIZE), account.getBalance());
+        }
+
+        List<Deposit> deposits = new ArrayList<>(state.getDeposits().values());
+        List<Map<Payment, InterestPolicy>> depositPayments = new ArrayList<>(deposits.size());
+        Map<InterestPolicy, Integer> policyIndexes = new IdentityHashMap<>();
+        List<InterestPolicy> policies = new ArrayList<>();
+        int paymentCount = 0;
+        for (Deposit deposit : deposits) {
+            Map<Payment, InterestPolicy> payments = deposit.getPayments();
+            for (InterestPolicy policy : payments.values()) {
+                if (!policyIndexes.containsKey(policy)) {
+                    policyIndexes.put(policy, policies.size());
+                    policies.add(policy);
+                }
+            }
+            depositPayments.add(payments);
+            paymentCount += payments.size();
+        }
+        output.putCount(policies.size());
+        for (InterestPolicy policy : policies) {
+            JournalCodec.putPolicy(output.ensure(MAX_VALUE_SIZE), policy);
+        }
+
+        output.putCount(deposits.size());
+        for (Deposit deposit : deposits) {
+            output.ensure(Long.BYTES).putLong(deposit.getId());
+        }
+        for (Deposit deposit : deposits) {
+            output.ensure(Integer.BYTES).putInt(accountIndexes.get(deposit.getConnectedAccount()));
+        }
+        for (Deposit deposit : deposits) {
+            output.ensure(1).put((byte) (deposit.isOpen() ? 1 : 0));
+        }
+        for (Deposit deposit : deposits) {
+            JournalCodec.putDurationDetails(output.ensure(MAX_VALUE_SIZE), deposit.getDurationDetails());
+        }
+        for (Map<Payment, InterestPolicy> payments : depositPayments) {
+            output.ensure(Integer.BYTES).putInt(payments.size());
+        }
+
+        output.putCount(paymentCount);
+        for (Map<Payment, InterestPolicy> payments : depositPayments) {
+            for (Payment payment : payments.keySet()) {
+                output.ensure(Long.BYTES).putLong(((DepositPayment) payment).getId());
+            }
+        }
+        for (Map<Payment, InterestPolicy> payments : depositPayments) {
+            for (Payment payment : payments.keySet()) {
+                JournalCodec.putAmount(output.ensure(MAX_VALUE_SIZE), payment.getPaymentAmount());
+            }
+        }
+        for (Map<Payment, InterestPolicy> payments : depositPayments) {
+            for (Payment payment : payments.keySet()) {
+                JournalCodec.putDate(output.ensure(Integer.BYTES), payment.getPaymentDate());
+            }
+        }
+        for (Map<Payment, InterestPolicy> payments : depositPayments) {
+            for (InterestPolicy policy : payments.values()) {
+                output.ensure(Integer.BYTES).putInt(policyIndexes.get(policy));
+            }
+        }
+    }
+
+    private static JournalReplayer readState(Input input) throws IOException {
+        ByteBuffer buffer = input.ensure(Integer.BYTES + Long.BYTES);
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalStateException("Not a snapshot file.");
+        }
+        JournalReplayer state = new JournalReplayer();
+        state.setLastSegmentIndex(buffer.getLong());
+
+        Customer[] customers = new Customer[input.getCount()];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = new Customer(input.ensure(Long.BYTES).getLong());
+            state.getCustomers().put(customers[i].getId(), customers[i]);
+        }
+
+        Account[] accounts = new Account[input.getCount()];
+        long[] accountIds = new long[accounts.length];
+        for (int i = 0; i < accounts.length; i++) {
+            accountIds[i] = input.ensure(Long.BYTES).getLong();
+        }
+        Customer[] owners = new Customer[accounts.length];
+        for (int i = 0; i < accounts.length; i++) {
+            owners[i] = customers[input.ensure(Integer.BYTES).getInt()];
+        }
+        for (int i = 0; i < accounts.length; i++) {
+            BigDecimal balance = JournalCodec.getAmount(input.ensure(MAX_VALUE_SIZE));
+            accounts[i] = JournalReplayer.replayedAccount(owners[i], accountIds[i], balance);
+            state.getAccounts().put(accounts[i].getId(), accounts[i]);
+        }
+
+        InterestPolicy[] policies = new InterestPolicy[input.getCount()];
+        for (int i = 0; i < policies.length; i++) {
+            policies[i] = JournalCodec.getPolicy(input.ensure(MAX_VALUE_SIZE));
+        }
+
+        int depositCount = input.getCount();
+        long[] depositIds = new long[depositCount];
+        int[] accountIndexes = new int[depositCount];
+        boolean[] open = new boolean[depositCount];
+        DepositDurationDetails[] durationDetails = new DepositDurationDetails[depositCount];
+        int[] paymentCounts = new int[depositCount];
+        for (int i = 0; i < depositCount; i++) {
+            depositIds[i] = input.ensure(Long.BYTES).getLong();
+        }
+        for (int i = 0; i < depositCount; i++) {
+            accountIndexes[i] = input.ensure(Integer.BYTES).getInt();
+        }
+        for (int i = 0; i < depositCount; i++) {
+            open[i] = input.ensure(1).get() != 0;
+        }
+        for (int i = 0; i < depositCount; i++) {
+            durationDetails[i] = JournalCodec.getDurationDetails(input.ensure(MAX_VALUE_SIZE));
+        }
+        for (int i = 0; i < depositCount; i++) {
+            paymentCounts[i] = input.ensure(Integer.BYTES).getInt();
+        }
+
+        int paymentCount = input.getCount();
+        long[] paymentIds = new long[paymentCount];
+        BigDecimal[] amounts = new BigDecimal[paymentCount];
+        LocalDate[] dates = new LocalDate[paymentCount];
+        for (int i = 0; i < paymentCount; i++) {
+            paymentIds[i] = input.ensure(Long.BYTES).getLong();
+        }
+        for (int i = 0; i < paymentCount; i++) {
+            amounts[i] = JournalCodec.getAmount(input.ensure(MAX_VALUE_SIZE));
+        }
+        for (int i = 0; i < paymentCount; i++) {
+            dates[i] = JournalCodec.getDate(input.ensure(Integer.BYTES));
+        }
+        int payment = 0;
+        for (int i = 0; i < depositCount; i++) {
+            Map<Payment, InterestPolicy> payments = new LinkedHashMap<>();
+            for (int j = 0; j < paymentCounts[i]; j++, payment++) {
+                InterestPolicy policy = policies[input.ensure(Integer.BYTES).getInt()];
+                payments.put(new DepositPayment(paymentIds[payment], amounts[payment], dates[payment]), policy);
+            }
+            state.getDeposits().put(depositIds[i], new Deposit(depositIds[i], accounts[accountIndexes[i]], payments, durationDetails[i], open[i]));
+        }
+        return state;
+    }
+
+    private static final class Output implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        ByteBuffer ensure(int size) throws IOException {
+            if (buffer.remaining() < size) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void putCount(int count) throws IOException {
+            ensure(Integer.BYTES).putInt(count);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class Input implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            this.buffer.flip();
+        }
+
+        /**
+         * Makes at least {@code size} bytes available, or everything that is left in the file.
+         */
+        ByteBuffer ensure(int size) throws IOException {
+            if (buffer.remaining() < size) {
+                buffer.compact();
+                while (buffer.position() < size && channel.read(buffer) > 0) {
+                    // keep reading until enough bytes are buffered or the file ends
+                }
+                buffer.flip();
+            }
+            return buffer;
+        }
+
+        int getCount() throws IOException {
+            return ensure(Integer.BYTES).getInt();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
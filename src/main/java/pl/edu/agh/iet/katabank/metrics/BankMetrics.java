@@ -0,0 +1,162 @@
+package pl.edu.agh.iet.katabank.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide registry of operation counters and latency histograms, updated by
+ * {@link pl.edu.agh.iet.katabank.Bank}, {@link pl.edu.agh.iet.katabank.IdempotencyCache},
+ * {@link pl.edu.agh.iet.katabank.bankproduct.Account} and {@link pl.edu.agh.iet.katabank.bankproduct.Deposit}. Counters are {@link LongAdder}s, so
+ * concurrent operations do not contend on them.
+ * <p>
+ * Metrics are disabled unless the {@code katabank.metrics} system property is {@code true} or
+ * {@link #setEnabled} is called; when disabled every hook is a single volatile read and the
+ * clock is not read. {@link #registerMBean()} publishes the metrics over JMX.
+ */
+public final class BankMetrics {
+
+    public static final String OBJECT_NAME = "pl.edu.agh.iet.katabank:type=BankMetrics";
+
+    public enum Counter {
+        ACCOUNTS_OPENED,
+        DEPOSITS,
+        WITHDRAWALS,
+        TRANSFERS,
+        DEPOSITS_OPENED,
+        DEPOSITS_CLOSED,
+        REJECTED_OPERATIONS,
+        INSUFFICIENT_FUNDS,
+        IDEMPOTENT_REPLAYS,
+        HOT_ACCOUNTS_PROMOTED
+    }
+
+    public enum Timer {
+        TRANSFER,
+        OPEN_DEPOSIT,
+        CLOSE_DEPOSIT
+    }
+
+    private static final long NOT_TIMED = -1;
+    private static final LongAdder[] COUNTERS = new LongAdder[Counter.values().length];
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Timer.values().length];
+    private static volatile boolean enabled = Boolean.getBoolean("katabank.metrics");
+
+    static {
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new LongAdder();
+        }
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+    }
+
+    private BankMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        BankMetrics.enabled = enabled;
+    }
+
+    public static void increment(Counter counter) {
+        if (enabled) {
+            COUNTERS[counter.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Returns the start time to pass to {@link #stopTimer}, or a marker telling it not to
+     * record anything when metrics are disabled.
+     */
+    public static long startTimer() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    public static void stopTimer(Timer timer, long startTime) {
+        if (startTime != NOT_TIMED) {
+            HISTOGRAMS[timer.ordinal()].record(System.nanoTime() - startTime);
+        }
+    }
+
+    public static long getCount(Counter counter) {
+        return COUNTERS[counter.ordinal()].sum();
+    }
+
+    public static LatencyHistogram getHistogram(Timer timer) {
+        return HISTOGRAMS[timer.ordinal()];
+    }
+
+    public static void reset() {
+        for (LongAdder counter : COUNTERS) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server under {@link #OBJECT_NAME}, unless
+     * they are registered already.
+     */
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // already published
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register bank metrics MBean.", e);
+        }
+    }
+
+    private static final class MXBean implements BankMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return BankMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            BankMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Long> getCounters() {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            for (Counter counter : Counter.values()) {
+                counters.put(counter.name(), getCount(counter));
+            }
+            return counters;
+        }
+
+        @Override
+        public Map<String, Long> getLatencies() {
+            Map<String, Long> latencies = new LinkedHashMap<>();
+            for (Timer timer : Timer.values()) {
+                LatencyHistogram histogram = getHistogram(timer);
+                latencies.put(timer.name() + ".count", histogram.getCount());
+                latencies.put(timer.name() + ".p50", histogram.getValueAtPercentile(50));
+                latencies.put(timer.name() + ".p99", histogram.getValueAtPercentile(99));
+                latencies.put(timer.name() + ".p999", histogram.getValueAtPercentile(99.9));
+                latencies.put(timer.name() + ".max", histogram.getMaxValue());
+            }
+            return latencies;
+        }
+
+        @Override
+        public void reset() {
+            BankMetrics.reset();
+        }
+    }
+}
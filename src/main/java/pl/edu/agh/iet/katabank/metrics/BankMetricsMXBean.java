@@ -0,0 +1,20 @@
+package pl.edu.agh.iet.katabank.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link BankMetrics}. Latencies are in nanoseconds, keyed by timer name and
+ * statistic, e.g. {@code TRANSFER.p99}.
+ */
+public interface BankMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getLatencies();
+
+    void reset();
+}
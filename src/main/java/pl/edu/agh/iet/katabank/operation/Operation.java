@@ -0,0 +1,83 @@
+package pl.edu.agh.iet.katabank.operation;
+
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+public final class Operation {
+
+    private final Type type;
+    private final Customer customer;
+    private final Account account;
+    private final Account targetAccount;
+    private final BigDecimal amount;
+
+    private Operation(Type type, Customer customer, Account account, Account targetAccount, BigDecimal amount) {
+        this.type = type;
+        this.customer = customer;
+        this.account = account;
+        this.targetAccount = targetAccount;
+        this.amount = amount;
+    }
+
+    public static Operation deposit(Customer customer, Account account, BigDecimal amount) {
+        return new Operation(Type.DEPOSIT, customer, account, null, amount);
+    }
+
+    public static Operation withdraw(Customer customer, Account account, BigDecimal amount) {
+        return new Operation(Type.WITHDRAW, customer, account, null, amount);
+    }
+
+    public static Operation transfer(Customer customer, Account account, Account targetAccount, BigDecimal amount) {
+        return new Operation(Type.TRANSFER, customer, account, targetAccount, amount);
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public Customer getCustomer() {
+        return this.customer;
+    }
+
+    public Account getAccount() {
+        return this.account;
+    }
+
+    public Account getTargetAccount() {
+        return this.targetAccount;
+    }
+
+    public BigDecimal getAmount() {
+        return this.amount;
+    }
+
+    /**
+     * Operations are equal when they do the same, amounts being compared by value, so a retried
+     * batch can be recognized by its operations.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Operation operation = (Operation) o;
+        return type == operation.type
+                && Objects.equals(customer, operation.customer)
+                && Objects.equals(account, operation.account)
+                && Objects.equals(targetAccount, operation.targetAccount)
+                && (amount == null ? operation.amount == null
+                : operation.amount != null && amount.compareTo(operation.amount) == 0);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * type.hashCode() + Objects.hashCode(customer)) + Objects.hashCode(account))
+                + Objects.hashCode(targetAccount);
+    }
+
+    public enum Type {
+        DEPOSIT, WITHDRAW, TRANSFER
+    }
+}
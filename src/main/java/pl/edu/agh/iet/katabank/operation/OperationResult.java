@@ -0,0 +1,39 @@
+package pl.edu.agh.iet.katabank.operation;
+
+public final class OperationResult {
+
+    private final Operation operation;
+    private final Status status;
+    private final String message;
+
+    public OperationResult(Operation operation, Status status, String message) {
+        this.operation = operation;
+        this.status = status;
+        this.message = message;
+    }
+
+    public Operation getOperation() {
+        return this.operation;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    public boolean isSuccessful() {
+        return this.status == Status.SUCCESS;
+    }
+
+    public enum Status {
+        /** The operation was applied. */
+        SUCCESS,
+        /** The operation itself was invalid and caused the whole batch to be rejected. */
+        FAILED,
+        /** The operation was valid, but was not applied because the batch was rejected. */
+        ROLLED_BACK
+    }
+}
@@ -0,0 +1,130 @@
+package pl.edu.agh.iet.katabank.portfolio;
+
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money;
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Read-only view of everything a customer holds, for statements of customers with many
+ * products. Nothing is copied up front: accounts and deposits are walked lazily through the
+ * repository, so a caller may stop at any product, and pages allocate only the page itself.
+ * <p>
+ * Pages are numbered from 0 and stable as long as the customer opens no new products.
+ */
+public class CustomerPortfolio {
+
+    private static final String INCORRECT_PAGE_MESSAGE = "Incorrect page: ";
+
+    private final BankProductsRepository bankProductsRepository;
+    private final Customer customer;
+
+    public CustomerPortfolio(BankProductsRepository bankProductsRepository, Customer customer) {
+        this.bankProductsRepository = bankProductsRepository;
+        this.customer = customer;
+    }
+
+    public Customer getCustomer() {
+        return this.customer;
+    }
+
+    public Iterator<Account> accounts() {
+        return bankProductsRepository.iterateAccountsForCustomer(customer);
+    }
+
+    public Iterator<Deposit> deposits() {
+        return bankProductsRepository.iterateDepositsForCustomer(customer);
+    }
+
+    /**
+     * Passes accounts to the visitor until it returns {@code false} or all were visited.
+     *
+     * @return {@code true} if every account was visited
+     */
+    public boolean forEachAccount(Predicate<? super Account> visitor) {
+        return visit(accounts(), visitor);
+    }
+
+    /**
+     * Passes deposits to the visitor until it returns {@code false} or all were visited.
+     *
+     * @return {@code true} if every deposit was visited
+     */
+    public boolean forEachDeposit(Predicate<? super Deposit> visitor) {
+        return visit(deposits(), visitor);
+    }
+
+    public List<Account> getAccountsPage(int page, int pageSize) {
+        return page(accounts(), page, pageSize);
+    }
+
+    public List<Deposit> getDepositsPage(int page, int pageSize) {
+        return page(deposits(), page, pageSize);
+    }
+
+    /**
+     * Sums account balances, the balances of open deposits and their accrued interest in a
+     * single pass over the products.
+     */
+    public PortfolioSummary summarize(LocalDate valuationDate) {
+        long accountCount = 0;
+        long accountsMinorUnits = 0;
+        for (Iterator<Account> accounts = accounts(); accounts.hasNext(); ) {
+            accountsMinorUnits = Math.addExact(accountsMinorUnits, accounts.next().getMoneyBalance().getMinorUnits());
+            accountCount++;
+        }
+        long depositCount = 0;
+        BigDecimal depositsBalance = BigDecimal.ZERO;
+        BigDecimal accruedInterest = BigDecimal.ZERO;
+        for (Iterator<Deposit> deposits = deposits(); deposits.hasNext(); ) {
+            Deposit deposit = deposits.next();
+            if (!deposit.isOpen()) {
+                continue;
+            }
+            depositsBalance = depositsBalance.add(deposit.getBalance());
+            accruedInterest = accruedInterest.add(deposit.calculateAccruedInterest(valuationDate));
+            depositCount++;
+        }
+        return new PortfolioSummary(valuationDate, accountCount, depositCount,
+                Money.toBigDecimal(accountsMinorUnits), depositsBalance, accruedInterest);
+    }
+
+    private static <T> boolean visit(Iterator<T> products, Predicate<? super T> visitor) {
+        while (products.hasNext()) {
+            if (!visitor.test(products.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> List<T> page(Iterator<T> products, int page, int pageSize) {
+        if (page < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException(INCORRECT_PAGE_MESSAGE + page + ", size " + pageSize);
+        }
+        long toSkip = (long) page * pageSize;
+        for (long i = 0; i < toSkip; i++) {
+            if (!products.hasNext()) {
+                return Collections.emptyList();
+            }
+            products.next();
+        }
+        if (!products.hasNext()) {
+            return Collections.emptyList();
+        }
+        List<T> items = new ArrayList<>(pageSize);
+        while (items.size() < pageSize && products.hasNext()) {
+            items.add(products.next());
+        }
+        return Collections.unmodifiableList(items);
+    }
+}
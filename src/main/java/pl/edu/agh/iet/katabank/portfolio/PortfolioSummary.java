@@ -0,0 +1,59 @@
+package pl.edu.agh.iet.katabank.portfolio;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public final class PortfolioSummary {
+
+    private final LocalDate valuationDate;
+    private final long accountCount;
+    private final long depositCount;
+    private final BigDecimal accountsBalance;
+    private final BigDecimal depositsBalance;
+    private final BigDecimal accruedInterest;
+
+    PortfolioSummary(LocalDate valuationDate, long accountCount, long depositCount,
+                     BigDecimal accountsBalance, BigDecimal depositsBalance, BigDecimal accruedInterest) {
+        this.valuationDate = valuationDate;
+        this.accountCount = accountCount;
+        this.depositCount = depositCount;
+        this.accountsBalance = accountsBalance;
+        this.depositsBalance = depositsBalance;
+        this.accruedInterest = accruedInterest;
+    }
+
+    public LocalDate getValuationDate() {
+        return this.valuationDate;
+    }
+
+    public long getAccountCount() {
+        return this.accountCount;
+    }
+
+    /**
+     * Open deposits only; closed deposits have already been paid out to their accounts.
+     */
+    public long getDepositCount() {
+        return this.depositCount;
+    }
+
+    public BigDecimal getAccountsBalance() {
+        return this.accountsBalance;
+    }
+
+    public BigDecimal getDepositsBalance() {
+        return this.depositsBalance;
+    }
+
+    /**
+     * Interest the open deposits have earned by the valuation date, see
+     * {@link pl.edu.agh.iet.katabank.bankproduct.Deposit#calculateAccruedInterest}.
+     */
+    public BigDecimal getAccruedInterest() {
+        return this.accruedInterest;
+    }
+
+    public BigDecimal getTotalBalance() {
+        return this.accountsBalance.add(this.depositsBalance).add(this.accruedInterest);
+    }
+}
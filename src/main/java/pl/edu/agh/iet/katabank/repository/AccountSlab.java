@@ -0,0 +1,83 @@
+package pl.edu.agh.iet.katabank.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed-size account records in chunks of direct memory. A record holds the account id, the
+ * owner id, the balance in minor units and the index of the owner's previously opened account,
+ * which chains all accounts of a customer without any per-customer collection.
+ * Records are only ever appended; allocation must be externally synchronized.
+ */
+final class AccountSlab {
+
+    static final int NO_RECORD = OffHeapLongIntMap.NO_VALUE;
+
+    private static final int RECORD_SIZE = 32;
+    private static final int ID_OFFSET = 0;
+    private static final int OWNER_OFFSET = 8;
+    private static final int BALANCE_OFFSET = 16;
+    private static final int PREVIOUS_OFFSET = 24;
+
+    private final int chunkShift;
+    private final int chunkMask;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int size;
+
+    AccountSlab(int recordsPerChunk) {
+        if (Integer.bitCount(recordsPerChunk) != 1) {
+            throw new IllegalArgumentException("Records per chunk must be a power of two: " + recordsPerChunk);
+        }
+        this.chunkShift = Integer.numberOfTrailingZeros(recordsPerChunk);
+        this.chunkMask = recordsPerChunk - 1;
+    }
+
+    int allocate(long id, long ownerId, long balance, int previousRecord) {
+        int record = size;
+        if ((record >>> chunkShift) == chunks.length) {
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = ByteBuffer.allocateDirect((chunkMask + 1) * RECORD_SIZE);
+            chunks = grown;
+        }
+        ByteBuffer chunk = chunk(record);
+        int offset = offset(record);
+        chunk.putLong(offset + ID_OFFSET, id);
+        chunk.putLong(offset + OWNER_OFFSET, ownerId);
+        chunk.putLong(offset + BALANCE_OFFSET, balance);
+        chunk.putInt(offset + PREVIOUS_OFFSET, previousRecord);
+        size = Math.addExact(record, 1);
+        return record;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long id(int record) {
+        return chunk(record).getLong(offset(record) + ID_OFFSET);
+    }
+
+    long ownerId(int record) {
+        return chunk(record).getLong(offset(record) + OWNER_OFFSET);
+    }
+
+    int previousRecord(int record) {
+        return chunk(record).getInt(offset(record) + PREVIOUS_OFFSET);
+    }
+
+    long balance(int record) {
+        return chunk(record).getLong(offset(record) + BALANCE_OFFSET);
+    }
+
+    void balance(int record, long balance) {
+        chunk(record).putLong(offset(record) + BALANCE_OFFSET, balance);
+    }
+
+    private ByteBuffer chunk(int record) {
+        return chunks[record >>> chunkShift];
+    }
+
+    private int offset(int record) {
+        return (record & chunkMask) * RECORD_SIZE;
+    }
+}
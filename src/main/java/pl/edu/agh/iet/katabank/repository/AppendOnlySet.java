@@ -0,0 +1,130 @@
+package pl.edu.agh.iet.katabank.repository;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable set holding the first {@code size} elements of a column which is only ever appended
+ * to. A set built by {@link #with} from the newest set of a column appends to that column
+ * instead of copying it, so adding n elements one by one copies O(n) elements in total; the
+ * column is copied, to twice the size, only when it is full or when an older set is extended.
+ * Elements below a set's size never change, so every set stays immutable however the column
+ * grows, and a set published safely may be read by any thread.
+ * <p>
+ * Sets are built by one thread at a time per column. Small columns are searched linearly;
+ * columns of more than {@value #INDEX_THRESHOLD} elements also keep a map from each element to
+ * its position, which readers of older sets share by ignoring positions beyond their size.
+ */
+final class AppendOnlySet<T> extends AbstractSet<T> {
+
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int INDEX_THRESHOLD = 8;
+    private static final AppendOnlySet<?> EMPTY = new AppendOnlySet<>(new Column(0), 0);
+
+    private final Column column;
+    private final int size;
+
+    private AppendOnlySet(Column column, int size) {
+        this.column = column;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> AppendOnlySet<T> of() {
+        return (AppendOnlySet<T>) EMPTY;
+    }
+
+    /**
+     * Returns a set with the element added, or this set if it already contains it.
+     */
+    AppendOnlySet<T> with(T element) {
+        if (contains(element)) {
+            return this;
+        }
+        Column appended = column;
+        if (column.length != size || size == column.elements.length) {
+            appended = new Column(this, Math.max(INITIAL_CAPACITY, 2 * size));
+        }
+        appended.append(element);
+        return new AppendOnlySet<>(appended, size + 1);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int position = column.positionOf(o, size);
+        return position >= 0 && position < size;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return (T) column.elements[next++];
+            }
+        };
+    }
+
+    private static final class Column {
+
+        private final Object[] elements;
+        private final Map<Object, Integer> positions;
+        private int length;
+
+        Column(int capacity) {
+            this.elements = new Object[capacity];
+            this.positions = capacity > INDEX_THRESHOLD ? new ConcurrentHashMap<>(capacity) : null;
+        }
+
+        Column(AppendOnlySet<?> set, int capacity) {
+            this(capacity);
+            for (Object element : set) {
+                append(element);
+            }
+        }
+
+        void append(Object element) {
+            elements[length] = element;
+            if (positions != null) {
+                positions.put(element, length);
+            }
+            length++;
+        }
+
+        /**
+         * Position of the element, or -1 if it is not among the first {@code size} elements;
+         * positions of elements appended later may be returned as well.
+         */
+        int positionOf(Object element, int size) {
+            if (positions != null) {
+                Integer position = element == null ? null : positions.get(element);
+                return position == null ? -1 : position;
+            }
+            for (int i = 0; i < size; i++) {
+                if (elements[i].equals(element)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -4,16 +4,53 @@ import pl.edu.agh.iet.katabank.Customer;
 import pl.edu.agh.iet.katabank.bankproduct.Account;
 import pl.edu.agh.iet.katabank.bankproduct.Deposit;
 
+import java.util.Iterator;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface BankProductsRepository {
 
-    void addAccount(Account account);
+    /**
+     * Adds the account and returns it as the repository stores it, which is the account itself
+     * unless the repository keeps accounts in its own representation.
+     */
+    Account addAccount(Account account);
+
+    /**
+     * Creates a new account for the customer and adds it to the repository. Repositories which
+     * keep accounts in their own representation return the account as they store it.
+     */
+    default Account openAccount(Customer customer) {
+        return addAccount(new Account(customer));
+    }
 
     Set<Account> findAccountsForCustomer(Customer customer);
 
+    /**
+     * Walks the customer's accounts without copying them, for callers which look at each
+     * account once, e.g. statements. Accounts opened during the walk may or may not be seen.
+     */
+    default Iterator<Account> iterateAccountsForCustomer(Customer customer) {
+        return findAccountsForCustomer(customer).iterator();
+    }
+
+    boolean isAccountOwnedBy(Account account, Customer customer);
+
     void addDeposit(Deposit deposit);
 
     Set<Deposit> findDepositsForCustomer(Customer customer);
 
+    /**
+     * Walks the customer's deposits without copying them, as {@link #iterateAccountsForCustomer}.
+     */
+    default Iterator<Deposit> iterateDepositsForCustomer(Customer customer) {
+        return findDepositsForCustomer(customer).iterator();
+    }
+
+    /**
+     * All deposits of all customers, for bulk processing such as valuation. The stream splits
+     * by customer when made parallel.
+     */
+    Stream<Deposit> deposits();
+
 }
@@ -0,0 +1,78 @@
+package pl.edu.agh.iet.katabank.repository;
+
+import com.google.common.collect.ImmutableSet;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Thread-safe repository. Products are sharded by customer in {@link ConcurrentHashMap}s
+ * and inserted with atomic {@code computeIfAbsent}, so concurrent openings never drop an entry.
+ * Account lookups return immutable snapshots which callers may keep and iterate freely,
+ * deposit lookups return a read-only view of the maintained per-customer index.
+ */
+public class ConcurrentBankProductsRepository implements BankProductsRepository {
+
+    private final ConcurrentMap<Customer, Set<Account>> accountsMap;
+    private final ConcurrentMap<Account, Customer> ownersMap;
+    private final ConcurrentMap<Customer, Set<Deposit>> depositsMap;
+
+    public ConcurrentBankProductsRepository() {
+        this.accountsMap = new ConcurrentHashMap<>();
+        this.ownersMap = new ConcurrentHashMap<>();
+        this.depositsMap = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Account addAccount(Account account) {
+        accountsMap.computeIfAbsent(account.getOwner(), owner -> ConcurrentHashMap.newKeySet()).add(account);
+        ownersMap.put(account, account.getOwner());
+        return account;
+    }
+
+    @Override
+    public Set<Account> findAccountsForCustomer(Customer customer) {
+        Set<Account> customerAccounts = accountsMap.get(customer);
+        return customerAccounts == null ? ImmutableSet.of() : ImmutableSet.copyOf(customerAccounts);
+    }
+
+    /**
+     * Unlike {@link #findAccountsForCustomer}, iterates the maintained index itself, weakly
+     * consistent with concurrent openings.
+     */
+    @Override
+    public Iterator<Account> iterateAccountsForCustomer(Customer customer) {
+        Set<Account> customerAccounts = accountsMap.get(customer);
+        return customerAccounts == null ? Collections.emptyIterator()
+                : Collections.unmodifiableSet(customerAccounts).iterator();
+    }
+
+    @Override
+    public boolean isAccountOwnedBy(Account account, Customer customer) {
+        Customer owner = ownersMap.get(account);
+        return owner != null && owner.equals(customer);
+    }
+
+    @Override
+    public void addDeposit(Deposit deposit) {
+        depositsMap.computeIfAbsent(deposit.getOwner(), owner -> ConcurrentHashMap.newKeySet()).add(deposit);
+    }
+
+    @Override
+    public Set<Deposit> findDepositsForCustomer(Customer customer) {
+        Set<Deposit> customersDeposits = depositsMap.get(customer);
+        return customersDeposits == null ? ImmutableSet.of() : Collections.unmodifiableSet(customersDeposits);
+    }
+
+    @Override
+    public Stream<Deposit> deposits() {
+        return depositsMap.values().stream().flatMap(Set::stream);
+    }
+}
@@ -4,50 +4,96 @@ import pl.edu.agh.iet.katabank.Customer;
 import pl.edu.agh.iet.katabank.bankproduct.Account;
 import pl.edu.agh.iet.katabank.bankproduct.Deposit;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
 
+/**
+ * Repository for read-mostly traffic. Each customer's products are an immutable, versioned
+ * snapshot which is copied and replaced as a whole when an account or deposit is added, so a
+ * lookup is a single non-blocking map read returning the snapshot's own sets, and customers
+ * without products share one empty set. Lookups never lock nor allocate; results are immutable
+ * and callers may keep them. A new snapshot's sets share their elements with the previous
+ * snapshot's (see {@link AppendOnlySet}), so adding n products to one customer costs O(n) in
+ * total rather than a copy of all the customer's products each time. Additions for one customer
+ * are serialized while those for different customers run in parallel.
+ */
 public class InMemoryBankProductsRepository implements BankProductsRepository {
 
-    private Map<Customer, Set<Account>> accountsMap;
-    private Map<Account, Set<Deposit>> depositsMap;
+    private final ConcurrentMap<Customer, CustomerProducts> productsMap;
 
     public InMemoryBankProductsRepository() {
-        this.accountsMap = new HashMap<>();
-        this.depositsMap = new HashMap<>();
+        this.productsMap = new ConcurrentHashMap<>();
     }
 
     @Override
-    public void addAccount(Account account) {
-        Set<Account> customerAccounts = accountsMap.get(account.getOwner()) != null
-                ? accountsMap.get(account.getOwner()) : new HashSet<>();
-        customerAccounts.add(account);
-        accountsMap.put(account.getOwner(), customerAccounts);
+    public Account addAccount(Account account) {
+        productsMap.compute(account.getOwner(), (owner, products) -> productsOf(products).withAccount(account));
+        return account;
     }
 
     @Override
     public Set<Account> findAccountsForCustomer(Customer customer) {
-        return accountsMap.getOrDefault(customer, new HashSet<>());
+        return productsOf(productsMap.get(customer)).accounts;
+    }
+
+    @Override
+    public boolean isAccountOwnedBy(Account account, Customer customer) {
+        return account != null && customer != null
+                && productsOf(productsMap.get(customer)).accounts.contains(account);
     }
 
     @Override
     public void addDeposit(Deposit deposit) {
-        Set<Deposit> accountsDeposits = depositsMap.get(deposit.getConnectedAccount()) != null
-                ? depositsMap.get(deposit.getConnectedAccount()) : new HashSet<>();
-        accountsDeposits.add(deposit);
-        depositsMap.put(deposit.getConnectedAccount(), accountsDeposits);
+        productsMap.compute(deposit.getOwner(), (owner, products) -> productsOf(products).withDeposit(deposit));
     }
 
     @Override
     public Set<Deposit> findDepositsForCustomer(Customer customer) {
-        Set<Deposit> customersDeposits = new HashSet<>();
-        for (Account account : findAccountsForCustomer(customer)) {
-            customersDeposits.addAll(depositsMap.getOrDefault(account, new HashSet<>()));
-        }
-        return customersDeposits;
+        return productsOf(productsMap.get(customer)).deposits;
+    }
+
+    /**
+     * Version of the customer's products, 0 for a customer without any. It grows with every
+     * account or deposit added for the customer, so a caller can tell whether sets it looked up
+     * earlier are still current.
+     */
+    public long getVersion(Customer customer) {
+        return productsOf(productsMap.get(customer)).version;
     }
 
+    @Override
+    public Stream<Deposit> deposits() {
+        return productsMap.values().stream().flatMap(products -> products.deposits.stream());
+    }
+
+    private static CustomerProducts productsOf(CustomerProducts products) {
+        return products == null ? CustomerProducts.EMPTY : products;
+    }
 
+    private static final class CustomerProducts {
+
+        private static final CustomerProducts EMPTY = new CustomerProducts(0, AppendOnlySet.of(), AppendOnlySet.of());
+
+        private final long version;
+        private final AppendOnlySet<Account> accounts;
+        private final AppendOnlySet<Deposit> deposits;
+
+        private CustomerProducts(long version, AppendOnlySet<Account> accounts, AppendOnlySet<Deposit> deposits) {
+            this.version = version;
+            this.accounts = accounts;
+            this.deposits = deposits;
+        }
+
+        CustomerProducts withAccount(Account account) {
+            AppendOnlySet<Account> updatedAccounts = accounts.with(account);
+            return updatedAccounts == accounts ? this : new CustomerProducts(version + 1, updatedAccounts, deposits);
+        }
+
+        CustomerProducts withDeposit(Deposit deposit) {
+            AppendOnlySet<Deposit> updatedDeposits = deposits.with(deposit);
+            return updatedDeposits == deposits ? this : new CustomerProducts(version + 1, accounts, updatedDeposits);
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package pl.edu.agh.iet.katabank.repository;
+
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flyweight view of an account record in an {@link OffHeapBankProductsRepository}. The view
+ * holds no balance of its own, so any number of views of one account may exist at a time.
+ */
+final class OffHeapAccount extends Account {
+
+    private final OffHeapBankProductsRepository repository;
+    private final int record;
+
+    OffHeapAccount(OffHeapBankProductsRepository repository, int record, Customer owner, long id) {
+        super(owner, id, (AtomicLong) null);
+        this.repository = repository;
+        this.record = record;
+    }
+
+    boolean isStoredIn(OffHeapBankProductsRepository repository) {
+        return this.repository == repository;
+    }
+
+    int getRecord() {
+        return this.record;
+    }
+
+    @Override
+    protected long loadBalance() {
+        return repository.loadBalance(record);
+    }
+
+    @Override
+    protected void storeBalance(long minorUnits) {
+        repository.storeBalance(record, minorUnits);
+    }
+
+    @Override
+    protected boolean compareAndSetBalance(long expected, long updated) {
+        return repository.compareAndSetBalance(record, expected, updated);
+    }
+}
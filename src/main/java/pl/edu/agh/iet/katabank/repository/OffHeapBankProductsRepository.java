@@ -0,0 +1,231 @@
+package pl.edu.agh.iet.katabank.repository;
+
+import com.google.common.collect.ImmutableSet;
+import pl.edu.agh.iet.katabank.Customer;
+import pl.edu.agh.iet.katabank.bankproduct.Account;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.id.Identifiers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Repository for very large numbers of accounts. Balances and account ownership live in direct
+ * memory outside the Java heap: accounts are fixed-size records in an {@link AccountSlab}, found
+ * by id through an off-heap open-addressing index, and a second index points from each customer
+ * to the chain of their accounts. Accounts handed out are flyweight views of those records.
+ * <p>
+ * Balance updates are guarded by striped locks, as direct buffers offer no atomic operations.
+ * Opening accounts takes a write lock, lookups by id or customer share a read lock, and views
+ * already handed out need neither since a record's id and owner never change. Accounts passed to
+ * {@link #addAccount} are copied into a record; the account views returned by it,
+ * {@link #openAccount} and {@link #findAccountsForCustomer} must be used from then on, as the
+ * bank refuses operations on the copied account.
+ * Deposits are few compared to accounts and stay on the heap.
+ */
+public class OffHeapBankProductsRepository implements BankProductsRepository {
+
+    private static final int DEFAULT_EXPECTED_ACCOUNTS = 1 << 16;
+    private static final int RECORDS_PER_CHUNK = 1 << 16;
+    private static final int BALANCE_LOCK_STRIPES = 1024;
+
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final AccountSlab slab = new AccountSlab(RECORDS_PER_CHUNK);
+    private final OffHeapLongIntMap accountRecords;
+    private final OffHeapLongIntMap lastAccountRecords;
+    private final Object[] balanceLocks = new Object[BALANCE_LOCK_STRIPES];
+    private final ConcurrentMap<Customer, Set<Deposit>> depositsMap = new ConcurrentHashMap<>();
+
+    public OffHeapBankProductsRepository() {
+        this(DEFAULT_EXPECTED_ACCOUNTS);
+    }
+
+    public OffHeapBankProductsRepository(int expectedAccounts) {
+        this.accountRecords = new OffHeapLongIntMap(expectedAccounts);
+        this.lastAccountRecords = new OffHeapLongIntMap(expectedAccounts);
+        for (int i = 0; i < BALANCE_LOCK_STRIPES; i++) {
+            balanceLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public Account openAccount(Customer customer) {
+        long id = Identifiers.nextId();
+        return new OffHeapAccount(this, store(id, customer.getId(), 0), customer, id);
+    }
+
+    @Override
+    public Account addAccount(Account account) {
+        if (account instanceof OffHeapAccount && ((OffHeapAccount) account).isStoredIn(this)) {
+            return account;
+        }
+        int record = store(account.getId(), account.getOwner().getId(), account.getMoneyBalance().getMinorUnits());
+        return new OffHeapAccount(this, record, account.getOwner(), account.getId());
+    }
+
+    @Override
+    public Set<Account> findAccountsForCustomer(Customer customer) {
+        List<Account> accounts = new ArrayList<>();
+        Lock lock = structureLock.readLock();
+        lock.lock();
+        try {
+            int record = lastAccountRecords.get(customer.getId());
+            while (record != AccountSlab.NO_RECORD) {
+                accounts.add(new OffHeapAccount(this, record, customer, slab.id(record)));
+                record = slab.previousRecord(record);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (accounts.isEmpty()) {
+            return ImmutableSet.of();
+        }
+        Collections.reverse(accounts);
+        return ImmutableSet.copyOf(accounts);
+    }
+
+    /**
+     * Follows the customer's chain of records lazily, newest account first, holding the read
+     * lock only while stepping to the next record.
+     */
+    @Override
+    public Iterator<Account> iterateAccountsForCustomer(Customer customer) {
+        return new Iterator<Account>() {
+            private int record = lastRecordOf(customer);
+
+            @Override
+            public boolean hasNext() {
+                return record != AccountSlab.NO_RECORD;
+            }
+
+            @Override
+            public Account next() {
+                if (record == AccountSlab.NO_RECORD) {
+                    throw new NoSuchElementException();
+                }
+                Lock lock = structureLock.readLock();
+                lock.lock();
+                try {
+                    Account account = new OffHeapAccount(OffHeapBankProductsRepository.this, record, customer, slab.id(record));
+                    record = slab.previousRecord(record);
+                    return account;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+    }
+
+    /**
+     * Only views of this repository's records are owned by anybody: any other account, even
+     * with the id of a stored one, is detached from the stored balance, so operations on it
+     * would be lost.
+     */
+    @Override
+    public boolean isAccountOwnedBy(Account account, Customer customer) {
+        if (account == null || customer == null) {
+            return false;
+        }
+        if (!(account instanceof OffHeapAccount) || !((OffHeapAccount) account).isStoredIn(this)) {
+            return false;
+        }
+        return slab.ownerId(((OffHeapAccount) account).getRecord()) == customer.getId();
+    }
+
+    @Override
+    public void addDeposit(Deposit deposit) {
+        depositsMap.computeIfAbsent(deposit.getOwner(), owner -> ConcurrentHashMap.newKeySet()).add(deposit);
+    }
+
+    @Override
+    public Set<Deposit> findDepositsForCustomer(Customer customer) {
+        Set<Deposit> customersDeposits = depositsMap.get(customer);
+        return customersDeposits == null ? ImmutableSet.of() : Collections.unmodifiableSet(customersDeposits);
+    }
+
+    @Override
+    public Iterator<Deposit> iterateDepositsForCustomer(Customer customer) {
+        Set<Deposit> customersDeposits = depositsMap.get(customer);
+        return customersDeposits == null ? Collections.emptyIterator()
+                : Collections.unmodifiableSet(customersDeposits).iterator();
+    }
+
+    public int countAccounts() {
+        Lock lock = structureLock.readLock();
+        lock.lock();
+        try {
+            return slab.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int lastRecordOf(Customer customer) {
+        Lock lock = structureLock.readLock();
+        lock.lock();
+        try {
+            return lastAccountRecords.get(customer.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long loadBalance(int record) {
+        synchronized (balanceLock(record)) {
+            return slab.balance(record);
+        }
+    }
+
+    void storeBalance(int record, long balance) {
+        synchronized (balanceLock(record)) {
+            slab.balance(record, balance);
+        }
+    }
+
+    boolean compareAndSetBalance(int record, long expected, long updated) {
+        synchronized (balanceLock(record)) {
+            if (slab.balance(record) != expected) {
+                return false;
+            }
+            slab.balance(record, updated);
+            return true;
+        }
+    }
+
+    private int store(long accountId, long ownerId, long balance) {
+        Lock lock = structureLock.writeLock();
+        lock.lock();
+        try {
+            int record = accountRecords.get(accountId);
+            if (record != AccountSlab.NO_RECORD) {
+                return record;
+            }
+            int previousRecord = lastAccountRecords.get(ownerId);
+            record = slab.allocate(accountId, ownerId, balance, previousRecord);
+            accountRecords.put(accountId, record);
+            lastAccountRecords.put(ownerId, record);
+            return record;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object balanceLock(int record) {
+        return balanceLocks[record & (BALANCE_LOCK_STRIPES - 1)];
+    }
+
+    @Override
+    public Stream<Deposit> deposits() {
+        return depositsMap.values().stream().flatMap(Set::stream);
+    }
+}
@@ -0,0 +1,92 @@
+package pl.edu.agh.iet.katabank.repository;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open-addressing hash map from {@code long} keys to non-negative {@code int} values, kept in
+ * direct memory with linear probing. Slots hold the key and the value plus one, so a zero value
+ * marks an empty slot. At most half of the slots are used, which allows about 67 million
+ * entries per map. Not thread-safe.
+ */
+final class OffHeapLongIntMap {
+
+    static final int NO_VALUE = -1;
+
+    private static final int SLOT_SIZE = 12;
+    private static final int VALUE_OFFSET = 8;
+    private static final int MAX_SLOTS = 1 << 27;
+
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+
+    OffHeapLongIntMap(int expectedSize) {
+        int slots = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        allocate(Math.min(slots, MAX_SLOTS));
+    }
+
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int value = table.getInt(slot * SLOT_SIZE + VALUE_OFFSET);
+            if (value == 0) {
+                return NO_VALUE;
+            }
+            if (table.getLong(slot * SLOT_SIZE) == key) {
+                return value - 1;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        if ((size + 1) * 2L > mask + 1L) {
+            resize();
+        }
+        if (insert(table, mask, key, value)) {
+            size++;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        int slots = (mask + 1) * 2;
+        if (slots > MAX_SLOTS) {
+            throw new IllegalStateException("Off-heap index is full: " + size + " entries.");
+        }
+        ByteBuffer oldTable = table;
+        int oldSlots = mask + 1;
+        allocate(slots);
+        for (int slot = 0; slot < oldSlots; slot++) {
+            int value = oldTable.getInt(slot * SLOT_SIZE + VALUE_OFFSET);
+            if (value != 0) {
+                insert(table, mask, oldTable.getLong(slot * SLOT_SIZE), value - 1);
+            }
+        }
+    }
+
+    private void allocate(int slots) {
+        table = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        mask = slots - 1;
+    }
+
+    private boolean insert(ByteBuffer table, int mask, long key, int value) {
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int stored = table.getInt(slot * SLOT_SIZE + VALUE_OFFSET);
+            if (stored == 0 || table.getLong(slot * SLOT_SIZE) == key) {
+                table.putLong(slot * SLOT_SIZE, key);
+                table.putInt(slot * SLOT_SIZE + VALUE_OFFSET, value + 1);
+                return stored == 0;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        return hash(key) & mask;
+    }
+
+    private static int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
@@ -0,0 +1,175 @@
+package pl.edu.agh.iet.katabank.settlement;
+
+import pl.edu.agh.iet.katabank.Bank;
+import pl.edu.agh.iet.katabank.BankEventListener;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-of-day settlement of maturing deposits. Every deposit opened through the bank is put into
+ * a bucket for its close date; {@link #settle(LocalDate)} takes all buckets due by the business
+ * date and closes their deposits in parallel, crediting the connected accounts. A deposit which
+ * fails to close does not stop the others; it is reported and registered again, so the next
+ * settlement retries it.
+ */
+public class DepositSettlementEngine implements BankEventListener {
+
+    private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    private final Bank bank;
+    private final ForkJoinPool pool;
+    private final ConcurrentSkipListMap<LocalDate, Bucket> maturities = new ConcurrentSkipListMap<>();
+
+    public DepositSettlementEngine(Bank bank, ForkJoinPool pool) {
+        this.bank = bank;
+        this.pool = pool;
+    }
+
+    /**
+     * Creates an engine running on the common pool and subscribes it to deposits opened in the bank.
+     */
+    public static DepositSettlementEngine attachTo(Bank bank) {
+        DepositSettlementEngine engine = new DepositSettlementEngine(bank, ForkJoinPool.commonPool());
+        bank.addEventListener(engine);
+        return engine;
+    }
+
+    @Override
+    public void depositOpened(Deposit deposit, BigDecimal withdrawnAmount,
+                              DepositDurationDetails durationDetails, InterestPolicy interestPolicy) {
+        register(deposit);
+    }
+
+    /**
+     * Adds a deposit, e.g. one recovered at startup, to the maturity index.
+     */
+    public void register(Deposit deposit) {
+        LocalDate closeDate = deposit.getCloseDate();
+        while (true) {
+            Bucket bucket = maturities.computeIfAbsent(closeDate, date -> new Bucket());
+            if (bucket.add(deposit)) {
+                return;
+            }
+            maturities.remove(closeDate, bucket);
+        }
+    }
+
+    public int countPendingDeposits() {
+        return maturities.values().stream().mapToInt(Bucket::size).sum();
+    }
+
+    /**
+     * Closes every registered deposit whose close date is not after the business date.
+     * Deposits which fail to close are listed in the report with their failures.
+     */
+    public SettlementReport settle(LocalDate businessDate) {
+        List<Deposit> dueDeposits = new ArrayList<>();
+        Map.Entry<LocalDate, Bucket> entry;
+        while ((entry = maturities.firstEntry()) != null && !entry.getKey().isAfter(businessDate)) {
+            if (maturities.remove(entry.getKey(), entry.getValue())) {
+                dueDeposits.addAll(entry.getValue().seal());
+            }
+        }
+        LongAdder settled = new LongAdder();
+        LongAdder alreadyClosed = new LongAdder();
+        ConcurrentMap<Deposit, RuntimeException> failures = new ConcurrentHashMap<>();
+        pool.invoke(new SettlementTask(dueDeposits, 0, dueDeposits.size(), businessDate, settled, alreadyClosed, failures));
+        failures.keySet().forEach(this::register);
+        return new SettlementReport(businessDate, settled.sum(), alreadyClosed.sum(), failures);
+    }
+
+    private void settle(Deposit deposit, LocalDate businessDate, LongAdder settled, LongAdder alreadyClosed,
+                        ConcurrentMap<Deposit, RuntimeException> failures) {
+        if (!deposit.isOpen()) {
+            alreadyClosed.increment();
+            return;
+        }
+        try {
+            bank.closeDeposit(deposit.getOwner(), deposit, businessDate);
+            settled.increment();
+        } catch (RuntimeException e) {
+            if (deposit.isOpen()) {
+                failures.put(deposit, e);
+            } else {
+                alreadyClosed.increment();
+            }
+        }
+    }
+
+    private final class SettlementTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Deposit> deposits;
+        private final int from;
+        private final int to;
+        private final LocalDate businessDate;
+        private final LongAdder settled;
+        private final LongAdder alreadyClosed;
+        private final ConcurrentMap<Deposit, RuntimeException> failures;
+
+        SettlementTask(List<Deposit> deposits, int from, int to, LocalDate businessDate,
+                       LongAdder settled, LongAdder alreadyClosed, ConcurrentMap<Deposit, RuntimeException> failures) {
+            this.deposits = deposits;
+            this.from = from;
+            this.to = to;
+            this.businessDate = businessDate;
+            this.settled = settled;
+            this.alreadyClosed = alreadyClosed;
+            this.failures = failures;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    settle(deposits.get(i), businessDate, settled, alreadyClosed, failures);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SettlementTask(deposits, from, middle, businessDate, settled, alreadyClosed, failures),
+                    new SettlementTask(deposits, middle, to, businessDate, settled, alreadyClosed, failures));
+        }
+    }
+
+    /**
+     * Deposits maturing on one date. Once sealed by a settlement run no deposit can be added,
+     * so a registration racing with settlement retries with a fresh bucket instead of being lost.
+     */
+    private static final class Bucket {
+
+        private final List<Deposit> deposits = new ArrayList<>();
+        private boolean sealed;
+
+        synchronized boolean add(Deposit deposit) {
+            if (sealed) {
+                return false;
+            }
+            deposits.add(deposit);
+            return true;
+        }
+
+        synchronized List<Deposit> seal() {
+            sealed = true;
+            return deposits;
+        }
+
+        synchronized int size() {
+            return deposits.size();
+        }
+    }
+}
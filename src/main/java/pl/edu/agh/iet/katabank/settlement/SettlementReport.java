@@ -0,0 +1,46 @@
+package pl.edu.agh.iet.katabank.settlement;
+
+import com.google.common.collect.ImmutableMap;
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+public final class SettlementReport {
+
+    private final LocalDate businessDate;
+    private final long settledDeposits;
+    private final long alreadyClosedDeposits;
+    private final Map<Deposit, RuntimeException> failures;
+
+    SettlementReport(LocalDate businessDate, long settledDeposits, long alreadyClosedDeposits,
+                     Map<Deposit, RuntimeException> failures) {
+        this.businessDate = businessDate;
+        this.settledDeposits = settledDeposits;
+        this.alreadyClosedDeposits = alreadyClosedDeposits;
+        this.failures = ImmutableMap.copyOf(failures);
+    }
+
+    public LocalDate getBusinessDate() {
+        return this.businessDate;
+    }
+
+    public long getSettledDeposits() {
+        return this.settledDeposits;
+    }
+
+    /**
+     * Deposits which were due, but had already been closed before the settlement reached them.
+     */
+    public long getAlreadyClosedDeposits() {
+        return this.alreadyClosedDeposits;
+    }
+
+    /**
+     * Deposits which failed to close, with the exception each one failed with. They are left
+     * registered for the next settlement.
+     */
+    public Map<Deposit, RuntimeException> getFailures() {
+        return this.failures;
+    }
+}
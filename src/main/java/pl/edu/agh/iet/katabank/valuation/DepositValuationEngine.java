@@ -0,0 +1,96 @@
+package pl.edu.agh.iet.katabank.valuation;
+
+import pl.edu.agh.iet.katabank.bankproduct.Deposit;
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Values the whole deposit book as of a date: for every payment of every open deposit it
+ * calculates the interest accrued by that date and the interest projected at the planned close
+ * date, and sums them by interest policy type and maturity bucket.
+ * <p>
+ * The repository's deposit stream is split by customer across the pool; every worker sums into
+ * its own totals, which are merged once at the end, so workers never share mutable state.
+ */
+public class DepositValuationEngine {
+
+    private final BankProductsRepository bankProductsRepository;
+    private final ForkJoinPool pool;
+
+    public DepositValuationEngine(BankProductsRepository bankProductsRepository, ForkJoinPool pool) {
+        this.bankProductsRepository = bankProductsRepository;
+        this.pool = pool;
+    }
+
+    public DepositValuationEngine(BankProductsRepository bankProductsRepository) {
+        this(bankProductsRepository, ForkJoinPool.commonPool());
+    }
+
+    public ValuationReport valuate(LocalDate valuationDate) {
+        Accumulator result = pool.submit(() -> bankProductsRepository.deposits()
+                .parallel()
+                .collect(Accumulator::new, (accumulator, deposit) -> accumulator.add(deposit, valuationDate), Accumulator::merge))
+                .join();
+        return new ValuationReport(valuationDate, result.depositCount, result.groups());
+    }
+
+    private static final class Accumulator {
+
+        private static final MaturityBucket[] BUCKETS = MaturityBucket.values();
+
+        private final Map<Class<? extends InterestPolicy>, ValuationTotals[]> totalsByPolicyType = new IdentityHashMap<>();
+        private long depositCount;
+
+        void add(Deposit deposit, LocalDate valuationDate) {
+            if (!deposit.isOpen()) {
+                return;
+            }
+            LocalDate closeDate = deposit.getCloseDate();
+            int bucket = MaturityBucket.of(valuationDate, closeDate).ordinal();
+            deposit.forEachPayment((amount, paymentDate, policy) -> {
+                BigDecimal accrued = policy.calculateAccruedInterest(amount, paymentDate, valuationDate, closeDate);
+                BigDecimal projected = policy.calculateInterest(amount, paymentDate, closeDate, closeDate);
+                totalsFor(policy.getClass(), bucket).add(amount, accrued, projected);
+            });
+            depositCount++;
+        }
+
+        void merge(Accumulator other) {
+            depositCount += other.depositCount;
+            other.totalsByPolicyType.forEach((policyType, otherTotals) -> {
+                for (int bucket = 0; bucket < otherTotals.length; bucket++) {
+                    if (otherTotals[bucket] != null) {
+                        totalsFor(policyType, bucket).add(otherTotals[bucket]);
+                    }
+                }
+            });
+        }
+
+        Map<ValuationGroup, ValuationTotals> groups() {
+            Map<ValuationGroup, ValuationTotals> groups = new HashMap<>();
+            totalsByPolicyType.forEach((policyType, totals) -> {
+                for (int bucket = 0; bucket < totals.length; bucket++) {
+                    if (totals[bucket] != null) {
+                        groups.put(new ValuationGroup(policyType, BUCKETS[bucket]), totals[bucket]);
+                    }
+                }
+            });
+            return groups;
+        }
+
+        private ValuationTotals totalsFor(Class<? extends InterestPolicy> policyType, int bucket) {
+            ValuationTotals[] totals = totalsByPolicyType.computeIfAbsent(policyType, type -> new ValuationTotals[BUCKETS.length]);
+            if (totals[bucket] == null) {
+                totals[bucket] = new ValuationTotals();
+            }
+            return totals[bucket];
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package pl.edu.agh.iet.katabank.valuation;
+
+import java.time.LocalDate;
+
+/**
+ * Time left until a deposit's planned close date, counted from the valuation date.
+ */
+public enum MaturityBucket {
+    MATURED,
+    UP_TO_1_MONTH,
+    UP_TO_3_MONTHS,
+    UP_TO_6_MONTHS,
+    UP_TO_1_YEAR,
+    OVER_1_YEAR;
+
+    public static MaturityBucket of(LocalDate valuationDate, LocalDate closeDate) {
+        if (!closeDate.isAfter(valuationDate)) {
+            return MATURED;
+        }
+        if (!closeDate.isAfter(valuationDate.plusMonths(1))) {
+            return UP_TO_1_MONTH;
+        }
+        if (!closeDate.isAfter(valuationDate.plusMonths(3))) {
+            return UP_TO_3_MONTHS;
+        }
+        if (!closeDate.isAfter(valuationDate.plusMonths(6))) {
+            return UP_TO_6_MONTHS;
+        }
+        if (!closeDate.isAfter(valuationDate.plusYears(1))) {
+            return UP_TO_1_YEAR;
+        }
+        return OVER_1_YEAR;
+    }
+}
@@ -0,0 +1,40 @@
+package pl.edu.agh.iet.katabank.valuation;
+
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy;
+
+public final class ValuationGroup {
+
+    private final Class<? extends InterestPolicy> policyType;
+    private final MaturityBucket maturityBucket;
+
+    public ValuationGroup(Class<? extends InterestPolicy> policyType, MaturityBucket maturityBucket) {
+        this.policyType = policyType;
+        this.maturityBucket = maturityBucket;
+    }
+
+    public Class<? extends InterestPolicy> getPolicyType() {
+        return this.policyType;
+    }
+
+    public MaturityBucket getMaturityBucket() {
+        return this.maturityBucket;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ValuationGroup that = (ValuationGroup) o;
+        return policyType == that.policyType && maturityBucket == that.maturityBucket;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * policyType.hashCode() + maturityBucket.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return policyType.getSimpleName() + "/" + maturityBucket;
+    }
+}
@@ -0,0 +1,39 @@
+package pl.edu.agh.iet.katabank.valuation;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+
+public final class ValuationReport {
+
+    private final LocalDate valuationDate;
+    private final long depositCount;
+    private final Map<ValuationGroup, ValuationTotals> groups;
+    private final ValuationTotals totals = new ValuationTotals();
+
+    ValuationReport(LocalDate valuationDate, long depositCount, Map<ValuationGroup, ValuationTotals> groups) {
+        this.valuationDate = valuationDate;
+        this.depositCount = depositCount;
+        this.groups = Collections.unmodifiableMap(groups);
+        groups.values().forEach(totals::add);
+    }
+
+    public LocalDate getValuationDate() {
+        return this.valuationDate;
+    }
+
+    /**
+     * Open deposits valued; closed deposits are skipped.
+     */
+    public long getDepositCount() {
+        return this.depositCount;
+    }
+
+    public Map<ValuationGroup, ValuationTotals> getGroups() {
+        return this.groups;
+    }
+
+    public ValuationTotals getTotals() {
+        return this.totals;
+    }
+}
@@ -0,0 +1,54 @@
+package pl.edu.agh.iet.katabank.valuation;
+
+import java.math.BigDecimal;
+
+/**
+ * Sums over the payments of one valuation group. Filled in while the valuation runs and not
+ * changed once it is reported.
+ */
+public final class ValuationTotals {
+
+    private long paymentCount;
+    private BigDecimal principal = BigDecimal.ZERO;
+    private BigDecimal accruedInterest = BigDecimal.ZERO;
+    private BigDecimal projectedInterest = BigDecimal.ZERO;
+
+    ValuationTotals() {
+    }
+
+    void add(BigDecimal amount, BigDecimal accrued, BigDecimal projected) {
+        paymentCount++;
+        principal = principal.add(amount);
+        accruedInterest = accruedInterest.add(accrued);
+        projectedInterest = projectedInterest.add(projected);
+    }
+
+    void add(ValuationTotals other) {
+        paymentCount += other.paymentCount;
+        principal = principal.add(other.principal);
+        accruedInterest = accruedInterest.add(other.accruedInterest);
+        projectedInterest = projectedInterest.add(other.projectedInterest);
+    }
+
+    public long getPaymentCount() {
+        return this.paymentCount;
+    }
+
+    public BigDecimal getPrincipal() {
+        return this.principal;
+    }
+
+    /**
+     * Interest earned by the valuation date.
+     */
+    public BigDecimal getAccruedInterest() {
+        return this.accruedInterest;
+    }
+
+    /**
+     * Interest to be paid if the deposits are held until their planned close dates.
+     */
+    public BigDecimal getProjectedInterest() {
+        return this.projectedInterest;
+    }
+}
@@ -0,0 +1,75 @@
+package pl.edu.agh.iet.katabank
+
+import pl.edu.agh.iet.katabank.bankproduct.Account
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ThreadLocalRandom
+
+import static org.assertj.core.api.Assertions.assertThat
+
+class AsyncBankTest extends Specification {
+
+    private final BankProductsRepository repository = new ConcurrentBankProductsRepository()
+    private final Bank bank = new Bank(repository)
+    private final AsyncBank asyncBank = new AsyncBank(bank)
+    private final Customer customer = new Customer()
+
+    def cleanup() {
+        asyncBank.close()
+    }
+
+    def "operations on the same account run in submission order"() {
+        given:
+        def account = bank.openAccount(customer)
+
+        when:
+        def futures = (1..1000).collectMany {
+            [asyncBank.deposit(customer, account, 10.00), asyncBank.withdraw(customer, account, 10.00)]
+        }
+        CompletableFuture.allOf(futures as CompletableFuture[]).join()
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(BigDecimal.ZERO)
+    }
+
+    def "failed operation completes exceptionally and does not block following operations"() {
+        given:
+        def account = bank.openAccount(customer)
+        def anotherCustomer = new Customer()
+
+        when:
+        def failed = asyncBank.withdraw(anotherCustomer, account, 10.00)
+        def following = asyncBank.deposit(customer, account, 10.00)
+        following.join()
+        failed.join()
+
+        then:
+        CompletionException ex = thrown()
+        ex.cause.message == 'Customer cannot withdraw money from others account.'
+        assertThat(account.getBalance()).isEqualByComparingTo(10.00)
+    }
+
+    def "concurrent transfers between accounts keep the total balance"() {
+        given:
+        List<Account> accounts = (1..20).collect {
+            def account = bank.openAccount(customer)
+            bank.deposit(customer, account, 100.00)
+            account
+        }
+
+        when:
+        def futures = (1..10000).collect {
+            def random = ThreadLocalRandom.current()
+            asyncBank.transfer(customer, accounts[random.nextInt(accounts.size())],
+                    accounts[random.nextInt(accounts.size())], 1.00)
+        }
+        CompletableFuture.allOf(futures as CompletableFuture[]).handle { result, error -> null }.join()
+
+        then:
+        assertThat(accounts.sum { it.getBalance() } as BigDecimal).isEqualByComparingTo(2000.00)
+    }
+}
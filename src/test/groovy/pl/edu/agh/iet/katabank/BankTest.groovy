@@ -4,11 +4,16 @@ import pl.edu.agh.iet.katabank.bankproduct.Account
 import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails
 import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy
 import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy
+import pl.edu.agh.iet.katabank.operation.Operation
 import pl.edu.agh.iet.katabank.repository.BankProductsRepository
 import pl.edu.agh.iet.katabank.repository.InMemoryBankProductsRepository
 import spock.lang.Specification
 
+import static org.assertj.core.api.Assertions.assertThat
 import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS
+import static pl.edu.agh.iet.katabank.operation.OperationResult.Status.FAILED
+import static pl.edu.agh.iet.katabank.operation.OperationResult.Status.ROLLED_BACK
+import static pl.edu.agh.iet.katabank.operation.OperationResult.Status.SUCCESS
 
 class BankTest extends Specification {
 
@@ -77,4 +82,221 @@ class BankTest extends Specification {
         ex.message == "The amount to withdraw is greater than account balance."
     }
 
+    def "batch applies all operations when every operation is valid"() {
+        given:
+        account = new Account(customer)
+        def anotherAccount = new Account(customer)
+        account.setBalance(100.0)
+        repository.addAccount(account)
+        repository.addAccount(anotherAccount)
+
+        when:
+        def results = bank.execute([
+                Operation.transfer(customer, account, anotherAccount, 60.0),
+                Operation.withdraw(customer, anotherAccount, 50.0),
+                Operation.deposit(customer, account, 5.0)])
+
+        then:
+        results*.status == [SUCCESS, SUCCESS, SUCCESS]
+        assertThat(account.getBalance()).isEqualByComparingTo(45.0)
+        assertThat(anotherAccount.getBalance()).isEqualByComparingTo(10.0)
+    }
+
+    def "batch is rolled back when any withdrawal fails"() {
+        given:
+        account = new Account(customer)
+        account.setBalance(30.0)
+        repository.addAccount(account)
+
+        when:
+        def results = bank.execute([
+                Operation.deposit(customer, account, 10.0),
+                Operation.withdraw(customer, account, 25.0),
+                Operation.withdraw(customer, account, 25.0)])
+
+        then:
+        results*.status == [ROLLED_BACK, ROLLED_BACK, FAILED]
+        results[2].message == 'The amount to withdraw is greater than account balance.'
+        assertThat(account.getBalance()).isEqualByComparingTo(30.0)
+    }
+
+    def "batches moving money between the same accounts in opposite directions do not deadlock"() {
+        given:
+        account = new Account(customer)
+        def anotherAccount = new Account(customer)
+        account.setBalance(100.0)
+        anotherAccount.setBalance(100.0)
+        repository.addAccount(account)
+        repository.addAccount(anotherAccount)
+
+        when:
+        def threads = [[account, anotherAccount], [anotherAccount, account]].collect { pair ->
+            Thread.start {
+                2000.times {
+                    bank.execute([
+                            Operation.transfer(customer, pair[0], pair[1], 1.0),
+                            Operation.withdraw(customer, pair[1], 1.0),
+                            Operation.deposit(customer, pair[1], 1.0)])
+                }
+            }
+        }
+        threads*.join(10000)
+
+        then:
+        threads.every { !it.alive }
+        assertThat(account.getBalance() + anotherAccount.getBalance()).isEqualByComparingTo(200.0)
+    }
+
+    def "batch is rejected when customer does not own an account"() {
+        given:
+        account = new Account(customer)
+        def anotherAccount = new Account(new Customer())
+        account.setBalance(30.0)
+        repository.addAccount(account)
+        repository.addAccount(anotherAccount)
+
+        when:
+        def results = bank.execute([
+                Operation.withdraw(customer, account, 10.0),
+                Operation.deposit(customer, anotherAccount, 10.0)])
+
+        then:
+        results*.status == [ROLLED_BACK, FAILED]
+        results[1].message == 'Customer cannot deposit money to others account.'
+        assertThat(account.getBalance()).isEqualByComparingTo(30.0)
+        assertThat(anotherAccount.getBalance()).isZero()
+    }
+
+    def "opened account is registered for the customer"() {
+        when:
+        account = bank.openAccount(customer)
+
+        then:
+        assertThat(bank.getAccountsForCustomer(customer)).containsExactly(account)
+    }
+
+    def "customer cannot close deposit of other customer"() {
+        given:
+        account = bank.openAccount(customer)
+        account.setBalance(10.0)
+        def deposit = bank.openDeposit(customer, account, 10.0, depositDurationDetails, interestPolicy)
+
+        when:
+        bank.closeDeposit(new Customer(), deposit, deposit.getCloseDate())
+
+        then:
+        RuntimeException ex = thrown()
+        ex.message == 'Customer cannot close others deposit.'
+        deposit.isOpen()
+    }
+
+    def "event listeners are notified about applied operations only"() {
+        given:
+        def listener = Mock(BankEventListener)
+        bank.addEventListener(listener)
+        account = bank.openAccount(customer)
+
+        when:
+        bank.deposit(customer, account, 10.0)
+        bank.withdraw(customer, account, 20.0)
+
+        then:
+        thrown(IllegalArgumentException)
+        1 * listener.deposited(account, 10.0)
+        0 * listener.withdrawn(_, _)
+    }
+
+    def "opened deposit is registered for the customer"() {
+        given:
+        account = bank.openAccount(customer)
+        account.setBalance(10.0)
+
+        when:
+        def deposit = bank.openDeposit(customer, account, 10.0, depositDurationDetails, interestPolicy)
+
+        then:
+        assertThat(bank.getDepositsForCustomer(customer)).containsExactly(deposit)
+    }
+
+    def "deposits of the same product share policy and duration instances"() {
+        given:
+        account = bank.openAccount(customer)
+        account.setBalance(20.0)
+
+        when:
+        def firstDeposit = bank.openDeposit(customer, account, 10.0, new DepositDurationDetails(12, MONTHS), new MonthlyInterestPolicy(10.0))
+        def secondDeposit = bank.openDeposit(customer, account, 10.0, new DepositDurationDetails(12, MONTHS), new MonthlyInterestPolicy(10.00))
+
+        then:
+        secondDeposit.getDurationDetails().is(firstDeposit.getDurationDetails())
+        secondDeposit.getPayments().values()[0].is(firstDeposit.getPayments().values()[0])
+    }
+
+    def "deposit retried with the same idempotency key is applied once"() {
+        given:
+        account = bank.openAccount(customer)
+
+        when:
+        3.times { bank.deposit('deposit-1', customer, account, 10.00) }
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(10.00)
+    }
+
+    def "idempotency key reused for a deposit of another amount is rejected"() {
+        given:
+        account = bank.openAccount(customer)
+        bank.deposit('deposit-1', customer, account, 10.00)
+
+        when:
+        bank.deposit('deposit-1', customer, account, 20.00)
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == 'Idempotency key already used with other arguments: deposit-1'
+        assertThat(account.getBalance()).isEqualByComparingTo(10.00)
+    }
+
+    def "batch retried with equal operations is applied once"() {
+        given:
+        account = bank.openAccount(customer)
+
+        when:
+        2.times { bank.execute('batch-1', [Operation.deposit(customer, account, 10.00)]) }
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(10.00)
+    }
+
+    def "transfer retried after a failure throws the original exception without retrying"() {
+        given:
+        account = bank.openAccount(customer)
+        def targetAccount = bank.openAccount(customer)
+        RuntimeException firstFailure = null
+        try {
+            bank.transfer('transfer-1', customer, account, targetAccount, 10.00)
+        } catch (IllegalArgumentException e) {
+            firstFailure = e
+        }
+        bank.deposit(customer, account, 10.00)
+
+        when:
+        bank.transfer('transfer-1', customer, account, targetAccount, 10.00)
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.is(firstFailure)
+        assertThat(account.getBalance()).isEqualByComparingTo(10.00)
+        assertThat(targetAccount.getBalance()).isEqualByComparingTo(BigDecimal.ZERO)
+    }
+
+    def "account opened with an idempotency key is returned on retry"() {
+        when:
+        def first = bank.openAccount('open-1', customer)
+        def second = bank.openAccount('open-1', customer)
+
+        then:
+        first.is(second)
+        bank.getAccountsForCustomer(customer).size() == 1
+    }
 }
@@ -0,0 +1,134 @@
+package pl.edu.agh.iet.katabank
+
+import com.google.common.base.Ticker
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class IdempotencyCacheTest extends Specification {
+
+    private long nanos
+    private final Ticker ticker = new Ticker() {
+        @Override
+        long read() {
+            nanos
+        }
+    }
+    private final IdempotencyCache cache = new IdempotencyCache(1, TimeUnit.MINUTES, 100, ticker)
+    private final AtomicInteger executions = new AtomicInteger()
+
+    def "operation is executed once per key and replays return the first result"() {
+        when:
+        def first = cache.execute('key', 'operation') { executions.incrementAndGet() }
+        def second = cache.execute('key', 'operation') { executions.incrementAndGet() }
+
+        then:
+        first == 1
+        second == 1
+        executions.get() == 1
+    }
+
+    def "replay throws the exception of the first execution"() {
+        given:
+        def failure = new IllegalArgumentException('first failure')
+        cache.execute('key', 'operation') { throw failure }
+
+        when:
+        cache.execute('key', 'operation') { executions.incrementAndGet() }
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.is(failure)
+        executions.get() == 0
+    }
+
+    def "key reused for another operation is rejected"() {
+        given:
+        cache.execute('key', 'deposit') { null }
+
+        when:
+        cache.execute('key', 'withdraw') { null }
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == 'Idempotency key already used for another operation: key'
+    }
+
+    def "key reused with other arguments is rejected"() {
+        given:
+        cache.execute('key', 'deposit', ['account', 10.00]) { executions.incrementAndGet() }
+
+        when:
+        cache.execute('key', 'deposit', ['account', 20.00]) { executions.incrementAndGet() }
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == 'Idempotency key already used with other arguments: key'
+        executions.get() == 1
+    }
+
+    def "retry with amounts equal in value replays the first result"() {
+        given:
+        cache.execute('key', 'deposit', ['account', 10.0]) { executions.incrementAndGet() }
+
+        when:
+        def result = cache.execute('key', 'deposit', ['account', 10.00]) { executions.incrementAndGet() }
+
+        then:
+        result == 1
+        executions.get() == 1
+    }
+
+    def "outcome expires after the configured time"() {
+        given:
+        cache.execute('key', 'operation') { executions.incrementAndGet() }
+
+        when:
+        nanos += TimeUnit.MINUTES.toNanos(1)
+        def result = cache.execute('key', 'operation') { executions.incrementAndGet() }
+
+        then:
+        result == 2
+    }
+
+    def "number of remembered keys is bounded"() {
+        when:
+        1000.times { key -> cache.execute("key-$key", 'operation') { key } }
+
+        then:
+        cache.size() <= 100
+    }
+
+    def "concurrent calls with one key execute the operation once"() {
+        given:
+        def executor = Executors.newFixedThreadPool(8)
+        def start = new CountDownLatch(1)
+
+        when:
+        def futures = (1..8).collect {
+            executor.submit {
+                start.await()
+                cache.execute('key', 'operation') { executions.incrementAndGet() }
+            }
+        }
+        start.countDown()
+        def results = futures*.get()
+        executor.shutdown()
+
+        then:
+        results.every { it == 1 }
+        executions.get() == 1
+    }
+
+    def "key cannot be null"() {
+        when:
+        cache.execute(null, 'operation') { null }
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == 'Idempotency key cannot be null.'
+    }
+}
@@ -0,0 +1,110 @@
+package pl.edu.agh.iet.katabank.bankproduct
+
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money
+import spock.lang.Specification
+
+import java.time.Clock
+
+import static org.assertj.core.api.Assertions.assertThat
+import static pl.edu.agh.iet.katabank.bankproduct.LedgerEntryType.*
+
+class AccountBatchTest extends Specification {
+
+    private final Account account = new Account(new Customer(), Clock.systemUTC())
+    private final Account targetAccount = new Account(new Customer(), Clock.systemUTC())
+
+    def setup() {
+        account.setBalance(100.00)
+    }
+
+    def "committed changes are stored and recorded when the batch is closed"() {
+        when:
+        def batch = AccountBatch.lock([targetAccount, account])
+        batch.transfer(account, targetAccount, Money.of(60.00))
+        batch.withdraw(targetAccount, Money.of(10.00))
+        batch.commit()
+        batch.close()
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(40.00)
+        assertThat(targetAccount.getBalance()).isEqualByComparingTo(50.00)
+        account.getLedger().getEntry(1).type == TRANSFER_OUT
+        account.getLedger().getEntry(1).counterpartyAccountId == targetAccount.getId()
+        (0..1).collect { targetAccount.getLedger().getEntry(it).type } == [TRANSFER_IN, WITHDRAWAL]
+    }
+
+    def "batch closed without a commit leaves balances and ledgers as they were"() {
+        when:
+        def batch = AccountBatch.lock([account, targetAccount])
+        batch.transfer(account, targetAccount, Money.of(60.00))
+        batch.close()
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(100.00)
+        assertThat(targetAccount.getBalance()).isZero()
+        account.getLedger().size() == 1
+        targetAccount.getLedger().size() == 0
+    }
+
+    def "debit greater than the locked balance is refused"() {
+        given:
+        def batch = AccountBatch.lock([account])
+
+        when:
+        batch.withdraw(account, Money.of(100.01))
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == 'The amount to withdraw is greater than account balance.'
+
+        cleanup:
+        batch.close()
+    }
+
+    def "updates and reads of a locked account wait until the batch is closed"() {
+        given:
+        def hotAccount = new Account(new Customer())
+        hotAccount.promoteToHotMode()
+        hotAccount.setBalance(100.00)
+        def batch = AccountBatch.lock([account, hotAccount])
+        batch.withdraw(account, Money.of(60.00))
+        batch.withdraw(hotAccount, Money.of(60.00))
+        BigDecimal seenBalance = null
+
+        when:
+        def withdrawal = Thread.start { account.withdraw(40.00) }
+        def hotWithdrawal = Thread.start { hotAccount.withdraw(40.00) }
+        def reader = Thread.start { seenBalance = account.getBalance() }
+        sleep(200)
+
+        then:
+        withdrawal.alive
+        hotWithdrawal.alive
+        reader.alive
+
+        when:
+        batch.commit()
+        batch.close()
+        [withdrawal, hotWithdrawal, reader]*.join(5000)
+
+        then:
+        assertThat(account.getBalance()).isZero()
+        assertThat(hotAccount.getBalance()).isZero()
+        seenBalance in [0.00, 40.00]
+    }
+
+    def "account not locked by the batch is refused"() {
+        given:
+        def batch = AccountBatch.lock([account])
+
+        when:
+        batch.deposit(targetAccount, Money.of(10.00))
+
+        then:
+        thrown(IllegalArgumentException)
+
+        cleanup:
+        batch.close()
+    }
+}
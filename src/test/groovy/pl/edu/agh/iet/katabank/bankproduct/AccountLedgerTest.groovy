@@ -0,0 +1,233 @@
+package pl.edu.agh.iet.katabank.bankproduct
+
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.amount.Money
+import spock.lang.Specification
+
+import java.time.Clock
+import java.time.Instant
+import java.time.LocalDate
+import java.time.ZoneId
+import java.time.ZoneOffset
+
+import static org.assertj.core.api.Assertions.assertThat
+import static pl.edu.agh.iet.katabank.bankproduct.LedgerEntryType.*
+
+class AccountLedgerTest extends Specification {
+
+    private static final Instant START = Instant.parse('2018-03-01T10:00:00Z')
+
+    private final SettableClock clock = new SettableClock()
+    private final Account account = new Account(new Customer(), clock)
+
+    def "every balance change is recorded with its type and amount"() {
+        given:
+        def targetAccount = new Account(new Customer(), clock)
+
+        when:
+        account.deposit(100.00)
+        account.withdraw(30.00)
+        account.transfer(targetAccount, 20.00)
+        account.setBalance(10.00)
+
+        then:
+        account.getLedger().size() == 4
+        def entries = (0..3).collect { account.getLedger().getEntry(it) }
+        entries*.type == [DEPOSIT, WITHDRAWAL, TRANSFER_OUT, ADJUSTMENT]
+        entries*.amount == [100.00, -30.00, -20.00, -40.00]
+        entries[2].counterpartyAccountId == targetAccount.getId()
+        targetAccount.getLedger().getEntry(0).type == TRANSFER_IN
+        targetAccount.getLedger().getEntry(0).counterpartyAccountId == account.getId()
+    }
+
+    def "account created without a ledger clock keeps no ledger"() {
+        given:
+        def accountWithoutLedger = new Account(new Customer())
+        accountWithoutLedger.deposit(10.00)
+
+        when:
+        accountWithoutLedger.getLedger()
+
+        then:
+        UnsupportedOperationException ex = thrown()
+        ex.message == 'Account does not keep a ledger.'
+    }
+
+    def "failed withdrawal is not recorded"() {
+        when:
+        account.withdraw(10.00)
+
+        then:
+        thrown(IllegalArgumentException)
+        account.getLedger().size() == 0
+    }
+
+    def "balance at a past instant reflects only earlier entries"() {
+        given:
+        1000.times {
+            clock.instant = START.plusSeconds(it * 3600)
+            account.deposit(1.00)
+        }
+
+        expect:
+        assertThat(account.getLedger().getBalanceAt(START.minusMillis(1))).isEqualByComparingTo(BigDecimal.ZERO)
+        assertThat(account.getLedger().getBalanceAt(START)).isEqualByComparingTo(1.00)
+        assertThat(account.getLedger().getBalanceAt(START.plusSeconds(499 * 3600 + 1))).isEqualByComparingTo(500.00)
+        assertThat(account.getLedger().getBalanceAt(START.plusSeconds(1000 * 3600))).isEqualByComparingTo(1000.00)
+    }
+
+    def "balance at a date includes the whole day"() {
+        given:
+        clock.instant = Instant.parse('2018-03-01T23:59:00Z')
+        account.deposit(10.00)
+        clock.instant = Instant.parse('2018-03-02T00:00:00Z')
+        account.deposit(5.00)
+
+        expect:
+        assertThat(account.getLedger().getBalanceAt(LocalDate.of(2018, 2, 28), ZoneOffset.UTC)).isEqualByComparingTo(BigDecimal.ZERO)
+        assertThat(account.getLedger().getBalanceAt(LocalDate.of(2018, 3, 1), ZoneOffset.UTC)).isEqualByComparingTo(10.00)
+        assertThat(account.getLedger().getBalanceAt(LocalDate.of(2018, 3, 2), ZoneOffset.UTC)).isEqualByComparingTo(15.00)
+    }
+
+    def "balance at a date ends the day in the given time zone"() {
+        given:
+        clock.instant = Instant.parse('2018-03-01T23:59:00Z')
+        account.deposit(10.00)
+
+        expect:
+        assertThat(account.getLedger().getBalanceAt(LocalDate.of(2018, 3, 1), ZoneOffset.ofHours(2))).isEqualByComparingTo(BigDecimal.ZERO)
+        assertThat(account.getLedger().getBalanceAt(LocalDate.of(2018, 3, 1), ZoneOffset.ofHours(-2))).isEqualByComparingTo(10.00)
+    }
+
+    def "ledgers keep their own clocks"() {
+        given:
+        def otherClock = new SettableClock(instant: START.plusSeconds(3600))
+        def otherAccount = new Account(new Customer(), otherClock)
+        clock.instant = START
+
+        when:
+        account.deposit(1.00)
+        otherAccount.deposit(1.00)
+
+        then:
+        account.getLedger().getEntry(0).timestamp == START
+        otherAccount.getLedger().getEntry(0).timestamp == START.plusSeconds(3600)
+    }
+
+    def "entries between two instants are returned oldest first"() {
+        given:
+        (0..9).each {
+            clock.instant = START.plusSeconds(it * 86400 * 30)
+            account.deposit(new BigDecimal(it + 1))
+        }
+
+        when:
+        def entries = account.getLedger().getEntries(START.plusSeconds(2 * 86400 * 30), START.plusSeconds(5 * 86400 * 30))
+
+        then:
+        entries*.amount == [3.00, 4.00, 5.00]
+    }
+
+    def "timestamps never go backwards"() {
+        given:
+        clock.instant = START
+        account.deposit(1.00)
+        clock.instant = START.minusSeconds(60)
+        account.deposit(1.00)
+
+        expect:
+        account.getLedger().getEntry(1).timestamp == START
+    }
+
+    def "ledger amounts add up to the balance after concurrent updates"() {
+        given:
+        account.setBalance(1000.00)
+        def threads = (1..8).collect {
+            Thread.start {
+                500.times {
+                    account.deposit(1.00)
+                    account.withdraw(1.00)
+                }
+            }
+        }
+        threads*.join()
+
+        expect:
+        def ledger = account.getLedger()
+        (0..<ledger.size()).sum { ledger.getEntry(it).amount } == account.getBalance()
+    }
+
+    def "ledger lists concurrent changes in the order they were applied"() {
+        given:
+        if (hot) {
+            account.promoteToHotMode()
+        }
+        def threads = (1..8).collect { thread ->
+            Thread.start {
+                2000.times {
+                    if (thread % 2 == 0) {
+                        account.deposit(1.00)
+                    } else {
+                        while (true) {
+                            try {
+                                account.withdraw(1.00)
+                                break
+                            } catch (IllegalArgumentException ignored) {
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        threads*.join()
+
+        expect:
+        def ledger = account.getLedger()
+        def runningBalances = (0..<ledger.size()).collect { ledger.getEntry(it).amount }.inject([]) { balances, amount ->
+            balances << (balances ? balances.last() : 0) + amount
+        }
+        runningBalances.every { it >= 0 }
+        runningBalances.last() == account.getBalance()
+
+        where:
+        hot << [false, true]
+    }
+
+    def "restored account starts its ledger at the restored balance"() {
+        given:
+        clock.instant = START
+        def restored = Account.restore(new Customer(), 1, Money.of(50.00), clock)
+
+        when:
+        restored.deposit(10.00)
+
+        then:
+        restored.getLedger().size() == 1
+        restored.getLedger().getEntry(0).type == DEPOSIT
+        assertThat(restored.getLedger().getBalanceAt(START.minusMillis(1))).isEqualByComparingTo(50.00)
+        assertThat(restored.getLedger().getBalanceAt(START)).isEqualByComparingTo(60.00)
+    }
+}
+
+/**
+ * Clock standing still at an instant the test sets.
+ */
+class SettableClock extends Clock {
+
+    Instant instant = Instant.now()
+
+    @Override
+    ZoneId getZone() {
+        ZoneOffset.UTC
+    }
+
+    @Override
+    Clock withZone(ZoneId zone) {
+        throw new UnsupportedOperationException()
+    }
+
+    @Override
+    Instant instant() {
+        instant
+    }
+}
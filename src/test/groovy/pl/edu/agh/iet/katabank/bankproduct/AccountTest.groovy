@@ -3,6 +3,14 @@ package pl.edu.agh.iet.katabank.bankproduct
 import pl.edu.agh.iet.katabank.Customer
 import spock.lang.Specification
 
+import java.time.Clock
+import java.time.Instant
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
 import static org.assertj.core.api.Assertions.assertThat
 
 class AccountTest extends Specification {
@@ -49,6 +57,25 @@ class AccountTest extends Specification {
         ex.message == ERROR_MESSAGE + null
     }
 
+    def "amount below the minor unit is rejected instead of rounded away"() {
+        given:
+        account.setBalance(1.0)
+
+        when:
+        operation(account, amount)
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == ERROR_MESSAGE + amount
+        assertThat(account.getBalance()).isEqualByComparingTo(1.0)
+
+        where:
+        amount | operation
+        0.004  | { Account target, BigDecimal value -> target.deposit(value) }
+        0.004  | { Account target, BigDecimal value -> target.withdraw(value) }
+        1.005  | { Account target, BigDecimal value -> target.transfer(new Account(target.getOwner()), value) }
+    }
+
     def "try to withdraw amount greater than account balance"() {
         setup:
         account.setBalance(100.0)
@@ -98,4 +125,178 @@ class AccountTest extends Specification {
         RuntimeException ex = thrown()
         ex.message == "Target account cannot be null."
     }
+
+    def "concurrent deposits and withdrawals do not lose updates"() {
+        given:
+        def threads = 8
+        def operationsPerThread = 10000
+        account.setBalance(1000.0)
+        def executor = Executors.newFixedThreadPool(threads)
+        def start = new CountDownLatch(1)
+
+        when:
+        threads.times {
+            executor.submit {
+                start.await()
+                operationsPerThread.times {
+                    account.deposit(2.0)
+                    account.withdraw(1.0)
+                }
+            }
+        }
+        start.countDown()
+        executor.shutdown()
+        executor.awaitTermination(1, TimeUnit.MINUTES)
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(1000.0 + threads * operationsPerThread)
+    }
+
+    def "opposite concurrent transfers neither deadlock nor create money"() {
+        given:
+        def anotherAccount = new Account(customer)
+        account.setBalance(10000.0)
+        anotherAccount.setBalance(10000.0)
+        def executor = Executors.newFixedThreadPool(2)
+
+        when:
+        executor.submit { 10000.times { account.transfer(anotherAccount, 1.0) } }
+        executor.submit { 10000.times { anotherAccount.transfer(account, 1.0) } }
+        executor.shutdown()
+        def finished = executor.awaitTermination(1, TimeUnit.MINUTES)
+
+        then:
+        finished
+        assertThat(account.getBalance() + anotherAccount.getBalance()).isEqualByComparingTo(20000.0)
+    }
+
+    def "transfer keeps insufficient funds check"() {
+        given:
+        def anotherAccount = new Account(customer)
+        account.setBalance(5.0)
+
+        when:
+        account.transfer(anotherAccount, 5.01)
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == 'The amount to withdraw is greater than account balance.'
+        assertThat(anotherAccount.getBalance()).isZero()
+    }
+
+    def "hot account keeps balance and ledger across promotion"() {
+        given:
+        def account = new Account(customer, Clock.systemUTC())
+        account.deposit(100.0)
+
+        when:
+        account.promoteToHotMode()
+        account.deposit(50.0)
+        account.withdraw(30.0)
+
+        then:
+        account.isHot()
+        assertThat(account.getBalance()).isEqualByComparingTo(120.0)
+        assertThat(account.getLedger().getBalanceAt(Instant.ofEpochMilli(Long.MAX_VALUE))).isEqualByComparingTo(120.0)
+    }
+
+    def "hot account refuses a withdrawal greater than balance"() {
+        given:
+        account.promoteToHotMode()
+        account.deposit(5.0)
+
+        when:
+        account.withdraw(5.01)
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == 'The amount to withdraw is greater than account balance.'
+        assertThat(account.getBalance()).isEqualByComparingTo(5.0)
+    }
+
+    def "credit overflowing the balance is refused, hot or not"() {
+        given:
+        if (hot) {
+            account.promoteToHotMode()
+        }
+        account.setBalance(92233720368547758.00)
+
+        when:
+        account.deposit(0.08)
+
+        then:
+        thrown(ArithmeticException)
+        assertThat(account.getBalance()).isEqualByComparingTo(92233720368547758.00)
+
+        where:
+        hot << [false, true]
+    }
+
+    def "balance of a hot account can be overwritten"() {
+        given:
+        account.promoteToHotMode()
+        account.deposit(70.0)
+
+        when:
+        account.setBalance(20.0)
+        account.deposit(1.0)
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(21.0)
+    }
+
+    def "concurrent credits and debits on a hot account never overdraw it"() {
+        given:
+        account.promoteToHotMode()
+        def threads = 16
+        def operationsPerThread = 1000
+        def debited = new AtomicLong()
+        def overdrawn = new AtomicBoolean()
+        def executor = Executors.newFixedThreadPool(threads)
+        def start = new CountDownLatch(1)
+
+        when:
+        threads.times { thread ->
+            executor.submit {
+                start.await()
+                operationsPerThread.times {
+                    if (thread % 2 == 0) {
+                        account.deposit(1.0)
+                    } else {
+                        try {
+                            account.withdraw(2.0)
+                            debited.incrementAndGet()
+                        } catch (IllegalArgumentException ignored) {
+                        }
+                    }
+                    if (account.getBalance() < 0) {
+                        overdrawn.set(true)
+                    }
+                }
+            }
+        }
+        start.countDown()
+        executor.shutdown()
+        executor.awaitTermination(1, TimeUnit.MINUTES)
+
+        then:
+        !overdrawn.get()
+        assertThat(account.getBalance()).isEqualByComparingTo(threads / 2 * operationsPerThread - 2 * debited.get())
+    }
+
+    def "account keeping its balance elsewhere cannot switch to hot mode"() {
+        given:
+        def offHeapLike = new Account(customer, 1, (AtomicLong) null) {
+            @Override
+            protected long loadBalance() {
+                0
+            }
+        }
+
+        when:
+        offHeapLike.promoteToHotMode()
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
 }
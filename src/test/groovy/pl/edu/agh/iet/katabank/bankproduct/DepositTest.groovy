@@ -135,6 +135,75 @@ class DepositTest extends Specification {
                 secondInterestPolicy.getYearlyInterestRatePercent())
     }
 
+    def "payment added twice is counted once in balance"() {
+        given:
+        def secondDepositPayment = new DepositPayment(25.0, LocalDate.now().plusMonths(1))
+        def secondInterestPolicy = new MonthlyInterestPolicy(12.0)
+
+        when:
+        deposit = new Deposit(account, depositPayment, depositDurationDetails, interestPolicy)
+        deposit.addPayment(secondDepositPayment, interestPolicy)
+        deposit.addPayment(secondDepositPayment, secondInterestPolicy)
+
+        then:
+        assertThat(deposit.getBalance())
+                .isEqualByComparingTo(depositPayment.getPaymentAmount() + secondDepositPayment.getPaymentAmount())
+        assertThat(deposit.getInterestRates())
+                .containsExactly(interestPolicy.getYearlyInterestRatePercent(),
+                secondInterestPolicy.getYearlyInterestRatePercent())
+    }
+
+    def "deposit returns payments equal to the ones added"() {
+        given:
+        def secondDepositPayment = new DepositPayment(25.0, LocalDate.now().plusMonths(1))
+        def secondInterestPolicy = new MonthlyInterestPolicy(12.0)
+
+        when:
+        deposit = new Deposit(account, depositPayment, depositDurationDetails, interestPolicy)
+        deposit.addPayment(secondDepositPayment, secondInterestPolicy)
+
+        then:
+        assertThat(deposit.getPayments().keySet()).containsExactly(depositPayment, secondDepositPayment)
+        assertThat(deposit.getPayments().keySet()*.getPaymentAmount())
+                .containsExactly(depositPayment.getPaymentAmount(), secondDepositPayment.getPaymentAmount())
+        assertThat(deposit.getPayments().values()).containsExactly(interestPolicy, secondInterestPolicy)
+    }
+
+    def "interest rates cannot be modified by caller"() {
+        given:
+        deposit = new Deposit(account, depositPayment, depositDurationDetails, interestPolicy)
+
+        when:
+        deposit.getInterestRates().add(BigDecimal.ONE)
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "interest rates are a snapshot unaffected by later payments"() {
+        given:
+        deposit = new Deposit(account, depositPayment, depositDurationDetails, interestPolicy)
+        def interestRates = deposit.getInterestRates()
+
+        when:
+        deposit.addPayment(new DepositPayment(25.0, LocalDate.now().plusMonths(1)), new MonthlyInterestPolicy(12.0))
+
+        then:
+        assertThat(interestRates).containsExactly(interestPolicy.getYearlyInterestRatePercent())
+    }
+
+    def "accrued interest is calculated without closing the deposit"() {
+        given:
+        deposit = new Deposit(account, depositPayment, depositDurationDetails, interestPolicy)
+
+        expect:
+        assertThat(deposit.calculateAccruedInterest(LocalDate.now())).isEqualByComparingTo(BigDecimal.ZERO)
+        assertThat(deposit.calculateAccruedInterest(LocalDate.now().plusMonths(6))).isEqualByComparingTo(5.00)
+        assertThat(deposit.calculateAccruedInterest(deposit.getCloseDate())).isEqualByComparingTo(10.00)
+        deposit.isOpen()
+        assertThat(account.getBalance()).isEqualByComparingTo(BigDecimal.ZERO)
+    }
+
     def "cannot add payment to closed deposit"() {
         given:
         def secondDepositPayment = new DepositPayment(25.0, LocalDate.now().plusMonths(1))
@@ -0,0 +1,74 @@
+package pl.edu.agh.iet.katabank.bankproduct
+
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy
+import pl.edu.agh.iet.katabank.id.Identifiers
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.LocalDate
+
+import static org.assertj.core.api.Assertions.assertThat
+
+class PaymentColumnsTest extends Specification {
+
+    private final PaymentColumns payments = new PaymentColumns()
+    private final InterestPolicy interestPolicy = new MonthlyInterestPolicy(10.0)
+    private final LocalDate paymentDate = LocalDate.of(2018, 1, 1)
+
+    @Unroll
+    def "amount #amount is read back exactly"() {
+        when:
+        payments.put(Identifiers.nextId(), amount, paymentDate, interestPolicy)
+
+        then:
+        assertThat(payments.amount(0)).isEqualTo(amount)
+
+        where:
+        amount << [new BigDecimal('25.0'), new BigDecimal('100'), new BigDecimal('1E+2'), new BigDecimal('-3.10'),
+                   new BigDecimal('999.5000000000'), new BigDecimal('0.001'),
+                   new BigDecimal('123456789012345678901234567890.12')]
+    }
+
+    def "payments keep insertion order"() {
+        when:
+        (0..<20).each { payments.put(Identifiers.nextId(), new BigDecimal(it), paymentDate.plusDays(it), interestPolicy) }
+
+        then:
+        assertThat((0..<20).collect { payments.amount(it) }).isEqualTo((0..<20).collect { new BigDecimal(it) })
+        assertThat((0..<20).collect { payments.date(it) }).isEqualTo((0..<20).collect { paymentDate.plusDays(it) })
+    }
+
+    def "payment with known id only replaces its policy"() {
+        given:
+        def ids = (0..<20).collect { Identifiers.nextId() }
+        ids.each { payments.put(it, 10.0, paymentDate, interestPolicy) }
+        def secondInterestPolicy = new MonthlyInterestPolicy(12.0)
+
+        when:
+        def previousPolicy = payments.put(ids[15], 10.0, paymentDate, secondInterestPolicy)
+
+        then:
+        previousPolicy.is(interestPolicy)
+        payments.size() == 20
+        payments.policy(15).is(secondInterestPolicy)
+        payments.id(15) == ids[15]
+    }
+
+    def "each policy is stored once"() {
+        when:
+        (0..<10).each { payments.put(Identifiers.nextId(), 10.0, paymentDate, interestPolicy) }
+
+        then:
+        payments.policyCount() == 1
+    }
+
+    def "equal but distinct policies are stored once"() {
+        when:
+        (0..<10).each { payments.put(Identifiers.nextId(), 10.0, paymentDate, new MonthlyInterestPolicy(10.0)) }
+
+        then:
+        payments.policyCount() == 1
+        payments.policy(9) == interestPolicy
+    }
+}
@@ -0,0 +1,87 @@
+package pl.edu.agh.iet.katabank.bankproduct.amount
+
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.Account
+import spock.lang.Specification
+
+import static org.assertj.core.api.Assertions.assertThat
+
+class MoneyTest extends Specification {
+
+    def "amount is converted to minor units"() {
+        expect:
+        Money.of(amount).getMinorUnits() == minorUnits
+
+        where:
+        amount    | minorUnits
+        0.0       | 0
+        1         | 100
+        99.91     | 9991
+        0.005     | 0
+        0.0051    | 1
+        -12.345   | -1234
+        999.50000 | 99950
+    }
+
+    def "money converts back to the same amount"() {
+        expect:
+        assertThat(Money.of(amount).toBigDecimal()).isEqualByComparingTo(amount)
+
+        where:
+        amount << [0.01, 1099.91, 217.87, 92233720368547758.07]
+    }
+
+    def "addition overflow is detected"() {
+        when:
+        Money.ofMinorUnits(Long.MAX_VALUE).add(Money.ofMinorUnits(1))
+
+        then:
+        thrown(ArithmeticException)
+    }
+
+    def "subtraction overflow is detected"() {
+        when:
+        Money.ofMinorUnits(Long.MIN_VALUE).subtract(Money.ofMinorUnits(1))
+
+        then:
+        thrown(ArithmeticException)
+    }
+
+    def "account balance matches BigDecimal arithmetic to the cent"() {
+        given:
+        def random = new Random(seed)
+        def account = new Account(new Customer())
+        BigDecimal expected = 0
+
+        when:
+        10000.times {
+            BigDecimal amount = new BigDecimal(random.nextInt(1000000) + 1).movePointLeft(random.nextInt(3))
+            if (random.nextBoolean()) {
+                account.deposit(amount)
+                expected = expected.add(amount)
+            } else if (amount <= expected) {
+                account.withdraw(amount)
+                expected = expected.subtract(amount)
+            }
+        }
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(expected)
+
+        where:
+        seed << [1L, 42L, 2018L]
+    }
+
+    def "only amounts without digits below the minor unit are exact"() {
+        expect:
+        Money.isExact(amount) == exact
+
+        where:
+        amount          | exact
+        1               | true
+        0.01            | true
+        999.5000000000  | true
+        0.004           | false
+        10.001          | false
+    }
+}
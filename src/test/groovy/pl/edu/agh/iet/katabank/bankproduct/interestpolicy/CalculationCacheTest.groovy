@@ -0,0 +1,63 @@
+package pl.edu.agh.iet.katabank.bankproduct.interestpolicy
+
+import spock.lang.Specification
+
+import java.lang.ref.WeakReference
+import java.time.LocalDate
+
+import static org.assertj.core.api.Assertions.assertThat
+
+class CalculationCacheTest extends Specification {
+
+    def setup() {
+        CalculationCache.invalidateAll()
+    }
+
+    def "repeated interest calculation reuses the cached multiplier"() {
+        given:
+        def openDate = LocalDate.of(2018, 1, 31)
+        def closeDate = openDate.plusMonths(6)
+        def policy = new MonthlyInterestPolicy(10.0)
+        def hitsBefore = CalculationCache.multiplierStats().hitCount()
+        def missesBefore = CalculationCache.multiplierStats().missCount()
+
+        when:
+        def first = policy.calculateInterest(100.0, openDate, closeDate, closeDate)
+        def second = new MonthlyInterestPolicy(10.0).calculateInterest(100.0, openDate, closeDate, closeDate)
+
+        then:
+        assertThat(first).isEqualByComparingTo(5.0)
+        second == first
+        CalculationCache.multiplierStats().missCount() - missesBefore == 1
+        CalculationCache.multiplierStats().hitCount() - hitsBefore == 1
+    }
+
+    def "multipliers of different policy types are not mixed up"() {
+        given:
+        def openDate = LocalDate.of(2018, 1, 1)
+        def closeDate = openDate.plusDays(6)
+
+        expect:
+        new MonthlyInterestPolicy(10.0).calculateInterest(100.0, openDate, closeDate, closeDate) == 0.00
+        new DailyInterestPolicyWithInsurance(10.0, 0.0).calculateInterest(100.0, openDate, closeDate, closeDate) == 0.16
+    }
+
+    def "cached multipliers do not keep their policy alive"() {
+        given:
+        def openDate = LocalDate.of(2018, 1, 31)
+        def closeDate = openDate.plusMonths(6)
+        def policy = new MonthlyInterestPolicy(13.37)
+        policy.calculateInterest(100.0, openDate, closeDate, closeDate)
+        def policyReference = new WeakReference(policy)
+
+        when:
+        policy = null
+        for (int i = 0; i < 20 && policyReference.get() != null; i++) {
+            System.gc()
+            Thread.sleep(10)
+        }
+
+        then:
+        policyReference.get() == null
+    }
+}
@@ -70,4 +70,40 @@ class DailyInterestPolicyWithInsuranceTest extends Specification {
                 .isEqualByComparingTo((initialAmount * (interestRate / 100.0) * ((duration) / 365))
                 .setScale(2, RoundingMode.HALF_DOWN))
     }
+
+    def "batch calculation gives the same interests as single calculations"() {
+        given:
+        def openDate = LocalDate.now()
+        def closeDate = openDate.plusDays(180)
+        BigDecimal[] amounts = [100.0, 250.55, 100.0, 0.01]
+        LocalDate[] paymentDates = [openDate, openDate.plusDays(30), openDate.plusDays(30), openDate.plusDays(179)]
+        dailyInterestPolicyWithInsurance = new DailyInterestPolicyWithInsurance(10.0, 1.0)
+
+        when:
+        def interests = dailyInterestPolicyWithInsurance.calculateInterests(amounts, paymentDates, calculationDate, closeDate)
+
+        then:
+        interests.toList() == (0..<amounts.length).collect {
+            dailyInterestPolicyWithInsurance.calculateInterest(amounts[it], paymentDates[it], calculationDate, closeDate)
+        }
+
+        where:
+        calculationDate << [LocalDate.now().plusDays(180), LocalDate.now().plusDays(90), LocalDate.now().plusDays(200)]
+    }
+
+    def "accrued interest grows daily until close date"() {
+        given:
+        def openDate = LocalDate.of(2018, 1, 15)
+        def closeDate = openDate.plusDays(200)
+        dailyInterestPolicyWithInsurance = new DailyInterestPolicyWithInsurance(3.65, 1.0)
+
+        expect:
+        assertThat(dailyInterestPolicyWithInsurance.calculateAccruedInterest(1000.0, openDate, valuationDate, closeDate)).isEqualByComparingTo(accruedInterest)
+
+        where:
+        valuationDate                        || accruedInterest
+        LocalDate.of(2018, 1, 10)            || 0.0
+        LocalDate.of(2018, 1, 15).plusDays(100) || 10.0
+        LocalDate.of(2018, 1, 15).plusDays(300) || 20.0
+    }
 }
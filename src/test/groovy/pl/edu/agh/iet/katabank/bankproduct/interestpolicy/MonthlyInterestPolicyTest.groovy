@@ -46,4 +46,42 @@ class MonthlyInterestPolicyTest extends Specification {
                 .setScale(2, RoundingMode.HALF_DOWN))
     }
 
+    def "batch calculation gives the same interests as single calculations"() {
+        given:
+        def openDate = LocalDate.now()
+        def closeDate = openDate.plusMonths(12)
+        BigDecimal[] amounts = [100.0, 250.55, 100.0, 0.01]
+        LocalDate[] paymentDates = [openDate, openDate.plusMonths(3), openDate.plusMonths(3), openDate.plusDays(40)]
+        monthyInterestPolicy = new MonthlyInterestPolicy(7.5)
+
+        when:
+        def interests = monthyInterestPolicy.calculateInterests(amounts, paymentDates, calculationDate, closeDate)
+
+        then:
+        interests.toList() == (0..<amounts.length).collect {
+            monthyInterestPolicy.calculateInterest(amounts[it], paymentDates[it], calculationDate, closeDate)
+        }
+
+        where:
+        calculationDate << [LocalDate.now().plusMonths(12), LocalDate.now().plusMonths(6)]
+    }
+
+    def "accrued interest grows by full months before close date"() {
+        given:
+        def openDate = LocalDate.of(2018, 1, 15)
+        def closeDate = openDate.plusMonths(12)
+        monthyInterestPolicy = new MonthlyInterestPolicy(12.0)
+
+        expect:
+        assertThat(monthyInterestPolicy.calculateAccruedInterest(100.0, openDate, valuationDate, closeDate)).isEqualByComparingTo(accruedInterest)
+
+        where:
+        valuationDate              || accruedInterest
+        LocalDate.of(2018, 1, 10)  || 0.0
+        LocalDate.of(2018, 2, 14)  || 0.0
+        LocalDate.of(2018, 2, 15)  || 1.0
+        LocalDate.of(2018, 7, 20)  || 6.0
+        LocalDate.of(2019, 1, 15)  || 12.0
+        LocalDate.of(2019, 6, 1)   || 12.0
+    }
 }
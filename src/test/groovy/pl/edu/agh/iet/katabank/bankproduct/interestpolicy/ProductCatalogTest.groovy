@@ -0,0 +1,45 @@
+package pl.edu.agh.iet.katabank.bankproduct.interestpolicy
+
+import spock.lang.Specification
+
+import static org.assertj.core.api.Assertions.assertThat
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.DAYS
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS
+
+class ProductCatalogTest extends Specification {
+
+    def "policies with equal rates are interned to the same instance"() {
+        given:
+        def policy = ProductCatalog.intern(new MonthlyInterestPolicy(new BigDecimal('10')))
+
+        expect:
+        ProductCatalog.intern(new MonthlyInterestPolicy(new BigDecimal('10.00'))).is(policy)
+    }
+
+    def "policies of different types or values are kept apart"() {
+        given:
+        def monthly = ProductCatalog.intern(new MonthlyInterestPolicy(10.0))
+        def daily = ProductCatalog.intern(new DailyInterestPolicyWithInsurance(10.0, 0.5))
+
+        expect:
+        !daily.is(monthly)
+        !ProductCatalog.intern(new DailyInterestPolicyWithInsurance(10.0, 1.0)).is(daily)
+        !ProductCatalog.intern(new MonthlyInterestPolicy(11.0)).is(monthly)
+    }
+
+    def "equal policies have equal hash codes"() {
+        expect:
+        assertThat(new DailyInterestPolicyWithInsurance(new BigDecimal('10.0'), new BigDecimal('0.50')))
+                .isEqualTo(new DailyInterestPolicyWithInsurance(new BigDecimal('10'), new BigDecimal('0.5')))
+                .hasSameHashCodeAs(new DailyInterestPolicyWithInsurance(new BigDecimal('10'), new BigDecimal('0.5')))
+    }
+
+    def "duration details are interned by duration and type"() {
+        given:
+        def durationDetails = ProductCatalog.intern(new DepositDurationDetails(12, MONTHS))
+
+        expect:
+        ProductCatalog.intern(new DepositDurationDetails(12, MONTHS)).is(durationDetails)
+        !ProductCatalog.intern(new DepositDurationDetails(12, DAYS)).is(durationDetails)
+    }
+}
@@ -0,0 +1,154 @@
+package pl.edu.agh.iet.katabank.engine
+
+import pl.edu.agh.iet.katabank.Bank
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.Account
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository
+import spock.lang.Specification
+
+import java.time.Clock
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadLocalRandom
+
+import static org.assertj.core.api.Assertions.assertThat
+import static pl.edu.agh.iet.katabank.bankproduct.LedgerEntryType.TRANSFER_IN
+import static pl.edu.agh.iet.katabank.bankproduct.LedgerEntryType.TRANSFER_OUT
+
+class ShardedAccountEngineTest extends Specification {
+
+    private final ShardedAccountEngine engine = new ShardedAccountEngine(4)
+    private final Bank bank = new Bank(new ConcurrentBankProductsRepository(), engine)
+    private final Customer customer = new Customer()
+
+    def cleanup() {
+        engine.close()
+    }
+
+    def "deposit and withdraw are applied before returning"() {
+        given:
+        def account = bank.openAccount(customer)
+
+        when:
+        bank.deposit(customer, account, 100.00)
+        bank.withdraw(customer, account, 30.00)
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(70.00)
+    }
+
+    def "failed withdraw is rethrown to the caller"() {
+        given:
+        def account = bank.openAccount(customer)
+
+        when:
+        bank.withdraw(customer, account, 10.00)
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == 'The amount to withdraw is greater than account balance.'
+    }
+
+    def "error thrown by a command is rethrown to the caller and the shard keeps running"() {
+        given:
+        def singleShardEngine = new ShardedAccountEngine(1)
+        def failingAccount = new Account(customer) {
+            @Override
+            void deposit(BigDecimal amount) {
+                throw new AssertionError('deposit failed')
+            }
+        }
+        def account = new Account(customer)
+
+        when:
+        singleShardEngine.deposit(failingAccount, 10.00)
+
+        then:
+        AssertionError error = thrown()
+        error.message == 'deposit failed'
+
+        when:
+        singleShardEngine.deposit(account, 10.00)
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(10.00)
+
+        cleanup:
+        singleShardEngine.close()
+    }
+
+    def "failed transfer leaves both accounts unchanged"() {
+        given:
+        def account = bank.openAccount(customer)
+        def targetAccount = bank.openAccount(customer)
+        bank.deposit(customer, account, 10.00)
+
+        when:
+        bank.transfer(customer, account, targetAccount, 10.01)
+
+        then:
+        thrown(IllegalArgumentException)
+        assertThat(account.getBalance()).isEqualByComparingTo(10.00)
+        assertThat(targetAccount.getBalance()).isEqualByComparingTo(BigDecimal.ZERO)
+    }
+
+    def "transfer is recorded in both ledgers with its counterparty"() {
+        given:
+        def account = new Account(customer, Clock.systemUTC())
+        def targetAccount = new Account(customer, Clock.systemUTC())
+        account.setBalance(10.00)
+
+        when:
+        engine.transfer(account, targetAccount, 4.00)
+
+        then:
+        def debit = account.getLedger().getEntry(1)
+        def credit = targetAccount.getLedger().getEntry(0)
+        debit.type == TRANSFER_OUT
+        debit.counterpartyAccountId == targetAccount.getId()
+        credit.type == TRANSFER_IN
+        credit.counterpartyAccountId == account.getId()
+        assertThat(targetAccount.getBalance()).isEqualByComparingTo(4.00)
+    }
+
+    def "concurrent transfers across shards keep the total balance"() {
+        given:
+        List<Account> accounts = (1..32).collect {
+            def account = bank.openAccount(customer)
+            bank.deposit(customer, account, 100.00)
+            account
+        }
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def futures = (1..8).collect {
+            executor.submit {
+                def random = ThreadLocalRandom.current()
+                1000.times {
+                    try {
+                        bank.transfer(customer, accounts[random.nextInt(accounts.size())],
+                                accounts[random.nextInt(accounts.size())], 7.50)
+                    } catch (IllegalArgumentException ignored) {
+                    }
+                }
+            }
+        }
+        futures*.get()
+        executor.shutdown()
+
+        then:
+        assertThat(accounts.sum { it.getBalance() } as BigDecimal).isEqualByComparingTo(3200.00)
+    }
+
+    def "closed engine rejects new commands"() {
+        given:
+        def account = bank.openAccount(customer)
+        engine.close()
+
+        when:
+        bank.deposit(customer, account, 10.00)
+
+        then:
+        IllegalStateException ex = thrown()
+        ex.message == 'Account engine is closed.'
+    }
+}
@@ -0,0 +1,73 @@
+package pl.edu.agh.iet.katabank.id
+
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.function.LongSupplier
+
+import static org.assertj.core.api.Assertions.assertThat
+
+class SnowflakeIdGeneratorTest extends Specification {
+
+    def "ids generated concurrently are unique"() {
+        given:
+        def generator = new SnowflakeIdGenerator()
+        def ids = ConcurrentHashMap.newKeySet()
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        8.times { executor.submit { 10000.times { ids.add(generator.nextId()) } } }
+        executor.shutdown()
+        executor.awaitTermination(30, TimeUnit.SECONDS)
+
+        then:
+        ids.size() == 80000
+    }
+
+    def "ids keep growing when sequence runs out within one millisecond"() {
+        given:
+        def generator = new SnowflakeIdGenerator(0, { SnowflakeIdGenerator.EPOCH + 1000 } as LongSupplier)
+
+        when:
+        def ids = (0..<10000).collect { generator.nextId() }
+
+        then:
+        assertThat(ids).isSorted().doesNotHaveDuplicates()
+    }
+
+    def "ids keep growing when clock moves backwards"() {
+        given:
+        def time = SnowflakeIdGenerator.EPOCH + 1000
+        def generator = new SnowflakeIdGenerator(0, { time } as LongSupplier)
+
+        when:
+        def first = generator.nextId()
+        time -= 500
+        def second = generator.nextId()
+
+        then:
+        second > first
+    }
+
+    def "id carries node and timestamp"() {
+        given:
+        def generator = new SnowflakeIdGenerator(5, { SnowflakeIdGenerator.EPOCH + 1000 } as LongSupplier)
+
+        when:
+        def id = generator.nextId()
+
+        then:
+        id >>> (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SHARD_BITS + SnowflakeIdGenerator.SEQUENCE_BITS) == 1000
+        (id >>> (SnowflakeIdGenerator.SHARD_BITS + SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE) == 5
+    }
+
+    def "node out of range is rejected"() {
+        when:
+        new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE + 1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
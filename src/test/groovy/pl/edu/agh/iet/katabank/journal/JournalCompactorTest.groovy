@@ -0,0 +1,66 @@
+package pl.edu.agh.iet.katabank.journal
+
+import pl.edu.agh.iet.katabank.Bank
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository
+import pl.edu.agh.iet.katabank.repository.InMemoryBankProductsRepository
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS
+
+class JournalCompactorTest extends Specification {
+
+    private final Path journalDirectory = Files.createTempDirectory('katabank-journal')
+    private final Path snapshotDirectory = Files.createTempDirectory('katabank-snapshots')
+    private final SnapshotStore snapshotStore = new SnapshotStore(snapshotDirectory)
+    private final JournalCompactor compactor = new JournalCompactor(journalDirectory, snapshotStore)
+    private final Bank bank = new Bank(new ConcurrentBankProductsRepository())
+    private final MappedSegmentJournal journal = new MappedSegmentJournal(journalDirectory, 256, false)
+    private final Customer customer = new Customer()
+
+    def setup() {
+        bank.addEventListener(journal)
+    }
+
+    def cleanup() {
+        journal.close()
+        compactor.close()
+        journalDirectory.toFile().deleteDir()
+        snapshotDirectory.toFile().deleteDir()
+    }
+
+    def "no snapshot is written while there is no sealed segment"() {
+        expect:
+        !compactor.compact()
+    }
+
+    def "snapshot followed by replay of newer segments restores the same state"() {
+        given:
+        def accounts = (1..20).collect { bank.openAccount(customer) }
+        accounts.each { bank.deposit(customer, it, 100.55) }
+        def deposit = bank.openDeposit(customer, accounts[0], 50.0,
+                new DepositDurationDetails(3, MONTHS), new MonthlyInterestPolicy(10.0))
+
+        when:
+        def compacted = compactor.compact()
+        accounts.eachWithIndex { account, i -> bank.transfer(customer, account, accounts[(i + 1) % 20], 1.11) }
+        bank.deposit(customer, accounts[3], 7.0)
+        journal.sync()
+        def recovered = new InMemoryBankProductsRepository()
+        JournalReplayer.recover(journalDirectory, snapshotStore, recovered)
+        def recoveredCustomer = new Customer(customer.getId())
+
+        then:
+        compacted
+        snapshotStore.loadLatest().getLastSegmentIndex() >= 0
+        recovered.findAccountsForCustomer(recoveredCustomer).collectEntries { [(it.getId()): it.getBalance()] } ==
+                accounts.collectEntries { [(it.getId()): it.getBalance()] }
+        recovered.findDepositsForCustomer(recoveredCustomer).collect { [it.getId(), it.getBalance(), it.getOpenDate()] } ==
+                [[deposit.getId(), deposit.getBalance(), deposit.getOpenDate()]]
+    }
+}
@@ -0,0 +1,225 @@
+package pl.edu.agh.iet.katabank.journal
+
+import pl.edu.agh.iet.katabank.Bank
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.Account
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DailyInterestPolicyWithInsurance
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository
+import pl.edu.agh.iet.katabank.repository.InMemoryBankProductsRepository
+import pl.edu.agh.iet.katabank.repository.OffHeapBankProductsRepository
+import spock.lang.Specification
+
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.LocalDate
+
+import static java.nio.file.StandardOpenOption.READ
+import static java.nio.file.StandardOpenOption.WRITE
+import static org.assertj.core.api.Assertions.assertThat
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.DAYS
+
+class MappedSegmentJournalTest extends Specification {
+
+    private final Path directory = Files.createTempDirectory('katabank-journal')
+    private final Customer customer = new Customer()
+
+    def cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    def "recovery restores accounts, balances and deposits"() {
+        given:
+        def bank = new Bank(new ConcurrentBankProductsRepository())
+        def journal = new MappedSegmentJournal(directory)
+        bank.addEventListener(journal)
+        def account = bank.openAccount(customer)
+        def anotherAccount = bank.openAccount(customer)
+
+        when:
+        bank.deposit(customer, account, 1000.50)
+        bank.transfer(customer, account, anotherAccount, 100.0)
+        bank.withdraw(customer, anotherAccount, 1.0)
+        def deposit = bank.openDeposit(customer, account, 500.0, new DepositDurationDetails(100, DAYS),
+                new DailyInterestPolicyWithInsurance(10.0, 0.05))
+        bank.closeDeposit(customer, deposit, LocalDate.now().plusDays(50))
+        journal.close()
+        def recovered = new InMemoryBankProductsRepository()
+        JournalReplayer.recover(directory, recovered)
+        def recoveredCustomer = new Customer(customer.getId())
+
+        then:
+        recovered.findAccountsForCustomer(recoveredCustomer)
+                .collectEntries { [(it.getId()): it.getBalance()] } == [(account.getId()): account.getBalance(),
+                                                                          (anotherAccount.getId()): anotherAccount.getBalance()]
+        def recoveredDeposits = recovered.findDepositsForCustomer(recoveredCustomer)
+        recoveredDeposits*.getId() == [deposit.getId()]
+        !recoveredDeposits.first().isOpen()
+    }
+
+    def "recovered accounts keep no ledger, like opened ones"() {
+        given:
+        def bank = new Bank(new ConcurrentBankProductsRepository())
+        def journal = new MappedSegmentJournal(directory)
+        bank.addEventListener(journal)
+        def account = bank.openAccount(customer)
+        bank.deposit(customer, account, 100.0)
+        bank.withdraw(customer, account, 30.0)
+        journal.close()
+
+        when:
+        def recovered = new InMemoryBankProductsRepository()
+        JournalReplayer.recover(directory, recovered)
+        def recoveredAccount = recovered.findAccountsForCustomer(new Customer(customer.getId())).first()
+
+        then:
+        assertThat(recoveredAccount.getBalance()).isEqualByComparingTo(70.0)
+
+        when:
+        recoveredAccount.getLedger()
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "deposit recovered into off-heap repository credits the stored account when closed"() {
+        given:
+        def bank = new Bank(new ConcurrentBankProductsRepository())
+        def journal = new MappedSegmentJournal(directory)
+        bank.addEventListener(journal)
+        def account = bank.openAccount(customer)
+        bank.deposit(customer, account, 1000.0)
+        bank.openDeposit(customer, account, 400.0, new DepositDurationDetails(100, DAYS),
+                new DailyInterestPolicyWithInsurance(10.0, 0.05))
+        journal.close()
+        def recovered = new OffHeapBankProductsRepository(16)
+        JournalReplayer.recover(directory, recovered)
+        def recoveredCustomer = new Customer(customer.getId())
+        def recoveredDeposit = recovered.findDepositsForCustomer(recoveredCustomer).first()
+
+        when:
+        new Bank(recovered).closeDeposit(recoveredCustomer, recoveredDeposit, LocalDate.now().plusDays(50))
+
+        then:
+        !recoveredDeposit.isOpen()
+        assertThat(recovered.findAccountsForCustomer(recoveredCustomer).first().getBalance()).isEqualByComparingTo(1005.28)
+    }
+
+    def "records are spread over many segments and appended after reopening"() {
+        given:
+        def bank = new Bank(new ConcurrentBankProductsRepository())
+        def journal = new MappedSegmentJournal(directory, 128, false)
+        bank.addEventListener(journal)
+        def account = bank.openAccount(customer)
+        100.times { bank.deposit(customer, account, 1.25) }
+        journal.close()
+
+        when:
+        def reopenedJournal = new MappedSegmentJournal(directory, 128, false)
+        reopenedJournal.deposited(account, 5.0)
+        reopenedJournal.close()
+        def recovered = new InMemoryBankProductsRepository()
+        JournalReplayer.recover(directory, recovered)
+
+        then:
+        assertThat(JournalSegments.listSegments(directory).size()).isGreaterThan(1)
+        assertThat(recovered.findAccountsForCustomer(new Customer(customer.getId())).first().getBalance())
+                .isEqualByComparingTo(130.0)
+    }
+
+    def "journal cannot be written after it is closed"() {
+        given:
+        def journal = new MappedSegmentJournal(directory)
+        journal.close()
+
+        when:
+        journal.accountOpened(new Account(customer))
+
+        then:
+        IllegalStateException ex = thrown()
+        ex.message == 'Journal is closed.'
+    }
+
+    def "failed flush is rethrown to the waiting writer and to later appends"() {
+        given:
+        def journal = new MappedSegmentJournal(directory, 4096, true) {
+            @Override
+            void force(MappedByteBuffer buffer) {
+                throw new UncheckedIOException(new IOException('disk gone'))
+            }
+        }
+        def account = new Account(customer)
+
+        when:
+        journal.accountOpened(account)
+
+        then:
+        IllegalStateException ex = thrown()
+        ex.message == 'Journal could not be flushed.'
+        ex.cause.cause.message == 'disk gone'
+
+        when:
+        journal.deposited(account, 10.00)
+
+        then:
+        thrown(IllegalStateException)
+
+        cleanup:
+        journal.close()
+    }
+
+    def "record torn at the end of the journal is dropped and overwritten after reopening"() {
+        given:
+        def account = new Account(customer)
+        def journal = new MappedSegmentJournal(directory, 4096, false)
+        journal.accountOpened(account)
+        journal.deposited(account, 10.0)
+        journal.deposited(account, 20.0)
+        journal.close()
+        corruptLastRecord(JournalSegments.listSegments(directory).last())
+
+        when:
+        def reopenedJournal = new MappedSegmentJournal(directory, 4096, false)
+        reopenedJournal.deposited(account, 5.0)
+        reopenedJournal.close()
+        def recovered = new InMemoryBankProductsRepository()
+        JournalReplayer.recover(directory, recovered)
+
+        then:
+        assertThat(recovered.findAccountsForCustomer(new Customer(customer.getId())).first().getBalance())
+                .isEqualByComparingTo(15.0)
+    }
+
+    def "corrupt record in a sealed segment is reported"() {
+        given:
+        def account = new Account(customer)
+        def journal = new MappedSegmentJournal(directory, 128, false)
+        journal.accountOpened(account)
+        10.times { journal.deposited(account, 1.0) }
+        journal.close()
+        corruptLastRecord(JournalSegments.listSegments(directory).first())
+
+        when:
+        JournalReplayer.recover(directory, new InMemoryBankProductsRepository())
+
+        then:
+        IllegalStateException ex = thrown()
+        ex.message.startsWith('Corrupt record in sealed journal segment: ')
+    }
+
+    private static void corruptLastRecord(Path segment) {
+        FileChannel.open(segment, READ, WRITE).withCloseable { channel ->
+            def buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size())
+            buffer.position(JournalSegments.HEADER_SIZE)
+            int length
+            while ((length = JournalSegments.recordLength(buffer)) > 0) {
+                buffer.position(buffer.position() + JournalSegments.RECORD_HEADER_SIZE + length)
+            }
+            int lastByte = buffer.position() - 1
+            buffer.put(lastByte, (byte) ~buffer.get(lastByte))
+            buffer.force()
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package pl.edu.agh.iet.katabank.metrics
+
+import pl.edu.agh.iet.katabank.Bank
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy
+import pl.edu.agh.iet.katabank.repository.InMemoryBankProductsRepository
+import spock.lang.Specification
+
+import java.lang.management.ManagementFactory
+import java.time.LocalDate
+import javax.management.ObjectName
+
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS
+import static pl.edu.agh.iet.katabank.metrics.BankMetrics.Counter.*
+import static pl.edu.agh.iet.katabank.metrics.BankMetrics.Timer.CLOSE_DEPOSIT
+import static pl.edu.agh.iet.katabank.metrics.BankMetrics.Timer.OPEN_DEPOSIT
+import static pl.edu.agh.iet.katabank.metrics.BankMetrics.Timer.TRANSFER
+
+class BankMetricsTest extends Specification {
+
+    private final Bank bank = new Bank(new InMemoryBankProductsRepository())
+    private final Customer customer = new Customer()
+    private boolean previouslyEnabled
+
+    def setup() {
+        previouslyEnabled = BankMetrics.isEnabled()
+        BankMetrics.reset()
+        BankMetrics.setEnabled(true)
+    }
+
+    def cleanup() {
+        BankMetrics.setEnabled(previouslyEnabled)
+        BankMetrics.reset()
+    }
+
+    def "bank operations are counted and timed"() {
+        given:
+        def account = bank.openAccount(customer)
+        def targetAccount = bank.openAccount(customer)
+
+        when:
+        bank.deposit(customer, account, 100.00)
+        bank.withdraw(customer, account, 10.00)
+        bank.transfer(customer, account, targetAccount, 10.00)
+        def deposit = bank.openDeposit(customer, account, 50.00, new DepositDurationDetails(12, MONTHS), new MonthlyInterestPolicy(10.0))
+        bank.closeDeposit(customer, deposit, LocalDate.now())
+
+        then:
+        BankMetrics.getCount(ACCOUNTS_OPENED) == 2
+        BankMetrics.getCount(DEPOSITS) == 1
+        BankMetrics.getCount(WITHDRAWALS) == 1
+        BankMetrics.getCount(TRANSFERS) == 1
+        BankMetrics.getCount(DEPOSITS_OPENED) == 1
+        BankMetrics.getCount(DEPOSITS_CLOSED) == 1
+        BankMetrics.getHistogram(TRANSFER).getCount() == 1
+        BankMetrics.getHistogram(OPEN_DEPOSIT).getCount() == 1
+        BankMetrics.getHistogram(CLOSE_DEPOSIT).getCount() == 1
+    }
+
+    def "rejected operations and insufficient funds are counted"() {
+        given:
+        def account = bank.openAccount(customer)
+        def othersAccount = bank.openAccount(new Customer())
+
+        when:
+        try {
+            bank.withdraw(customer, othersAccount, 10.00)
+        } catch (RuntimeException ignored) {
+        }
+        try {
+            bank.withdraw(customer, account, 10.00)
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        then:
+        BankMetrics.getCount(REJECTED_OPERATIONS) == 1
+        BankMetrics.getCount(INSUFFICIENT_FUNDS) == 1
+        BankMetrics.getCount(WITHDRAWALS) == 0
+    }
+
+    def "nothing is recorded when disabled"() {
+        given:
+        BankMetrics.setEnabled(false)
+        def account = bank.openAccount(customer)
+        def targetAccount = bank.openAccount(customer)
+
+        when:
+        bank.deposit(customer, account, 100.00)
+        bank.transfer(customer, account, targetAccount, 10.00)
+
+        then:
+        BankMetrics.getCount(DEPOSITS) == 0
+        BankMetrics.getHistogram(TRANSFER).getCount() == 0
+    }
+
+    def "metrics are published over JMX"() {
+        given:
+        BankMetrics.registerMBean()
+        bank.openAccount(customer)
+
+        when:
+        Map counters = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(BankMetrics.OBJECT_NAME), 'Counters')
+                .values()
+                .collectEntries { [(it.get('key')): it.get('value')] }
+
+        then:
+        counters['ACCOUNTS_OPENED'] == 1L
+    }
+}
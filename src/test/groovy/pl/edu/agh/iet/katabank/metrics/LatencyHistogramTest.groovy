@@ -0,0 +1,56 @@
+package pl.edu.agh.iet.katabank.metrics
+
+import spock.lang.Specification
+
+class LatencyHistogramTest extends Specification {
+
+    private final LatencyHistogram histogram = new LatencyHistogram()
+
+    def "empty histogram reports zero"() {
+        expect:
+        histogram.getCount() == 0
+        histogram.getValueAtPercentile(99) == 0
+    }
+
+    def "small values are recorded exactly"() {
+        when:
+        (0..31).each { histogram.record(it) }
+
+        then:
+        histogram.getCount() == 32
+        histogram.getValueAtPercentile(50) == 15
+        histogram.getMaxValue() == 31
+    }
+
+    def "percentiles are reported within the bucket precision"() {
+        when:
+        (1..100000).each { histogram.record(it) }
+
+        then:
+        histogram.getCount() == 100000
+        Math.abs(histogram.getValueAtPercentile(50) - 50000) <= 50000 / LatencyHistogram.SUB_BUCKETS
+        Math.abs(histogram.getValueAtPercentile(99) - 99000) <= 99000 / LatencyHistogram.SUB_BUCKETS
+        histogram.getValueAtPercentile(100) == 100000
+    }
+
+    def "every value falls into a bucket whose highest value is not lower"() {
+        expect:
+        LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(value)) >= value
+        LatencyHistogram.bucketOf(LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(value))) == LatencyHistogram.bucketOf(value)
+
+        where:
+        value << [0L, 31L, 32L, 33L, 1000L, 123456789L, Long.MAX_VALUE]
+    }
+
+    def "reset clears recorded values"() {
+        given:
+        histogram.record(1000)
+
+        when:
+        histogram.reset()
+
+        then:
+        histogram.getCount() == 0
+        histogram.getMaxValue() == 0
+    }
+}
@@ -0,0 +1,97 @@
+package pl.edu.agh.iet.katabank.portfolio
+
+import pl.edu.agh.iet.katabank.Bank
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.Account
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository
+import pl.edu.agh.iet.katabank.repository.InMemoryBankProductsRepository
+import pl.edu.agh.iet.katabank.repository.OffHeapBankProductsRepository
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.LocalDate
+
+import static org.assertj.core.api.Assertions.assertThat
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS
+
+class CustomerPortfolioTest extends Specification {
+
+    private final Customer customer = new Customer()
+
+    @Unroll
+    def "summary totals accounts, deposits and accrued interest in #repository.class.simpleName"() {
+        given:
+        def bank = new Bank(repository)
+        25.times { bank.deposit(customer, bank.openAccount(customer), 100.00) }
+        def account = bank.getAccountsForCustomer(customer).first()
+        def deposit = bank.openDeposit(customer, account, 50.00, new DepositDurationDetails(12, MONTHS), new MonthlyInterestPolicy(10.0))
+
+        when:
+        def summary = bank.getPortfolio(customer).summarize(deposit.getCloseDate())
+
+        then:
+        summary.getAccountCount() == 25
+        summary.getDepositCount() == 1
+        assertThat(summary.getAccountsBalance()).isEqualByComparingTo(2450.00)
+        assertThat(summary.getDepositsBalance()).isEqualByComparingTo(50.00)
+        assertThat(summary.getAccruedInterest()).isEqualByComparingTo(5.00)
+        assertThat(summary.getTotalBalance()).isEqualByComparingTo(2505.00)
+
+        where:
+        repository << [new InMemoryBankProductsRepository(), new ConcurrentBankProductsRepository(), new OffHeapBankProductsRepository()]
+    }
+
+    @Unroll
+    def "pages cover every account once in #repository.class.simpleName"() {
+        given:
+        def bank = new Bank(repository)
+        Set<Account> opened = (1..25).collect { bank.openAccount(customer) } as Set
+        def portfolio = bank.getPortfolio(customer)
+
+        when:
+        def pages = (0..3).collect { portfolio.getAccountsPage(it, 10) }
+
+        then:
+        pages*.size() == [10, 10, 5, 0]
+        pages.flatten() as Set == opened
+
+        where:
+        repository << [new InMemoryBankProductsRepository(), new ConcurrentBankProductsRepository(), new OffHeapBankProductsRepository()]
+    }
+
+    def "visiting stops when the visitor returns false"() {
+        given:
+        def bank = new Bank(new InMemoryBankProductsRepository())
+        10.times { bank.openAccount(customer) }
+        def visited = 0
+
+        when:
+        def completed = bank.getPortfolio(customer).forEachAccount { visited++ < 2 }
+
+        then:
+        !completed
+        visited == 3
+    }
+
+    def "customer without products has an empty portfolio"() {
+        when:
+        def portfolio = new Bank(new InMemoryBankProductsRepository()).getPortfolio(customer)
+
+        then:
+        !portfolio.accounts().hasNext()
+        portfolio.getDepositsPage(0, 10).isEmpty()
+        portfolio.summarize(LocalDate.now()).getTotalBalance() == 0
+    }
+
+    def "page number cannot be negative"() {
+        when:
+        new Bank(new InMemoryBankProductsRepository()).getPortfolio(customer).getAccountsPage(-1, 10)
+
+        then:
+        IllegalArgumentException ex = thrown()
+        ex.message == 'Incorrect page: -1, size 10'
+    }
+}
@@ -0,0 +1,116 @@
+package pl.edu.agh.iet.katabank.repository
+
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.Account
+import pl.edu.agh.iet.katabank.bankproduct.Deposit
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment
+import pl.edu.agh.iet.katabank.bankproduct.amount.Payment
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy
+import spock.lang.Specification
+
+import java.time.LocalDate
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static org.assertj.core.api.Assertions.assertThat
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS
+
+class ConcurrentBankProductsRepositoryTest extends Specification {
+
+    private static final int STRESS_ACCOUNTS = Integer.getInteger('katabank.stress.accounts', 100000)
+
+    private final ConcurrentBankProductsRepository bankProductsRepository = new ConcurrentBankProductsRepository()
+    private final InterestPolicy interestPolicy = new MonthlyInterestPolicy(10.0)
+    private final DepositDurationDetails depositDurationDetails = new DepositDurationDetails(12, MONTHS)
+    private final Payment depositPayment = new DepositPayment(10.0, LocalDate.now())
+
+    def "when customer has no accounts, empty set is returned"() {
+        expect:
+        assertThat(bankProductsRepository.findAccountsForCustomer(customer)).isEmpty()
+
+        where:
+        customer = new Customer()
+    }
+
+    def "returned accounts are an immutable snapshot"() {
+        given:
+        def customer = new Customer()
+        bankProductsRepository.addAccount(new Account(customer))
+        def accounts = bankProductsRepository.findAccountsForCustomer(customer)
+
+        when:
+        bankProductsRepository.addAccount(new Account(customer))
+        accounts.add(new Account(customer))
+
+        then:
+        thrown(UnsupportedOperationException)
+        assertThat(accounts).hasSize(1)
+        assertThat(bankProductsRepository.findAccountsForCustomer(customer)).hasSize(2)
+    }
+
+    def "when multiple customers have deposits, the set contains deposits for one customer only"() {
+        given:
+        def customer = new Customer()
+        def account = new Account(customer)
+        def anotherAccount = new Account(new Customer())
+
+        when:
+        def deposit = new Deposit(account, depositPayment, depositDurationDetails, interestPolicy)
+        def anotherDeposit = new Deposit(anotherAccount, depositPayment, depositDurationDetails, interestPolicy)
+        bankProductsRepository.addAccount(account)
+        bankProductsRepository.addAccount(anotherAccount)
+        bankProductsRepository.addDeposit(deposit)
+        bankProductsRepository.addDeposit(anotherDeposit)
+
+        then:
+        assertThat(bankProductsRepository.findDepositsForCustomer(customer)).containsExactly(deposit)
+    }
+
+    def "no account is lost when many threads open accounts concurrently"() {
+        given:
+        def threads = Runtime.getRuntime().availableProcessors() * 2
+        def customers = (1..1000).collect { new Customer() }
+        def executor = Executors.newFixedThreadPool(threads)
+        def start = new CountDownLatch(1)
+
+        when:
+        threads.times { thread ->
+            executor.submit {
+                start.await()
+                for (int i = thread; i < STRESS_ACCOUNTS; i += threads) {
+                    bankProductsRepository.addAccount(new Account(customers[i % customers.size()]))
+                }
+            }
+        }
+        start.countDown()
+        executor.shutdown()
+        executor.awaitTermination(10, TimeUnit.MINUTES)
+
+        then:
+        customers.sum { bankProductsRepository.findAccountsForCustomer(it).size() } == STRESS_ACCOUNTS
+    }
+
+    def "account is owned only by the customer it was registered for"() {
+        given:
+        def customer = new Customer()
+        def account = new Account(customer)
+
+        when:
+        bankProductsRepository.addAccount(account)
+
+        then:
+        bankProductsRepository.isAccountOwnedBy(account, customer)
+        !bankProductsRepository.isAccountOwnedBy(account, new Customer())
+    }
+
+    def "account not registered in repository has no owner"() {
+        given:
+        def customer = new Customer()
+
+        expect:
+        !bankProductsRepository.isAccountOwnedBy(new Account(customer), customer)
+    }
+}
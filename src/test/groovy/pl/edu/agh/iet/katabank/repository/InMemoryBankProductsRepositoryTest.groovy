@@ -11,6 +11,7 @@ import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy
 import spock.lang.Specification
 
 import java.time.LocalDate
+import java.util.concurrent.Executors
 
 import static org.assertj.core.api.Assertions.assertThat
 import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS
@@ -95,4 +96,115 @@ class InMemoryBankProductsRepositoryTest extends Specification {
         then:
         assertThat(bankProductsRepository.findDepositsForCustomer(customer)).containsExactly(deposit)
     }
+
+    def "account is owned only by the customer it was registered for"() {
+        given:
+        def customer = new Customer()
+        def account = new Account(customer)
+
+        when:
+        bankProductsRepository.addAccount(account)
+
+        then:
+        bankProductsRepository.isAccountOwnedBy(account, customer)
+        !bankProductsRepository.isAccountOwnedBy(account, new Customer())
+    }
+
+    def "account not registered in repository has no owner"() {
+        given:
+        def customer = new Customer()
+
+        expect:
+        !bankProductsRepository.isAccountOwnedBy(new Account(customer), customer)
+    }
+
+    def "customers without products share one empty set"() {
+        expect:
+        bankProductsRepository.findAccountsForCustomer(new Customer()).is(bankProductsRepository.findAccountsForCustomer(new Customer()))
+        bankProductsRepository.findDepositsForCustomer(new Customer()).is(bankProductsRepository.findDepositsForCustomer(new Customer()))
+    }
+
+    def "found accounts cannot be modified"() {
+        given:
+        def customer = new Customer()
+        bankProductsRepository.addAccount(new Account(customer))
+
+        when:
+        bankProductsRepository.findAccountsForCustomer(customer).add(new Account(customer))
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "accounts found earlier are not changed by later additions"() {
+        given:
+        def customer = new Customer()
+        def account = new Account(customer)
+        bankProductsRepository.addAccount(account)
+        def accountsBefore = bankProductsRepository.findAccountsForCustomer(customer)
+
+        when:
+        bankProductsRepository.addAccount(new Account(customer))
+
+        then:
+        assertThat(accountsBefore).containsExactly(account)
+        bankProductsRepository.findAccountsForCustomer(customer).size() == 2
+    }
+
+    def "every snapshot keeps its own accounts while many more are added"() {
+        given:
+        def customer = new Customer()
+        def accounts = (1..10000).collect { new Account(customer) }
+        def snapshots = [:]
+
+        when:
+        accounts.eachWithIndex { account, i ->
+            bankProductsRepository.addAccount(account)
+            if (i in [0, 7, 8, 100, 9999]) {
+                snapshots[i + 1] = bankProductsRepository.findAccountsForCustomer(customer)
+            }
+        }
+
+        then:
+        snapshots.every { size, snapshot -> snapshot.size() == size && snapshot as List == accounts.subList(0, size) }
+        !snapshots[8].contains(accounts[8])
+        !snapshots[101].contains(accounts[5000])
+        accounts.every { bankProductsRepository.isAccountOwnedBy(it, customer) }
+    }
+
+    def "version grows with every product added for the customer"() {
+        given:
+        def customer = new Customer()
+        def account = new Account(customer)
+        account.setBalance(20.0)
+
+        expect:
+        bankProductsRepository.getVersion(customer) == 0
+
+        when:
+        bankProductsRepository.addAccount(account)
+        bankProductsRepository.addAccount(account)
+        bankProductsRepository.addDeposit(new Deposit(account, depositPayment, depositDurationDetails, interestPolicy))
+
+        then:
+        bankProductsRepository.getVersion(customer) == 2
+        bankProductsRepository.getVersion(new Customer()) == 0
+    }
+
+    def "concurrently added accounts are all kept"() {
+        given:
+        def customer = new Customer()
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def futures = (1..8).collect {
+            executor.submit { 100.times { bankProductsRepository.addAccount(new Account(customer)) } }
+        }
+        futures*.get()
+        executor.shutdown()
+
+        then:
+        bankProductsRepository.findAccountsForCustomer(customer).size() == 800
+        bankProductsRepository.getVersion(customer) == 800
+    }
 }
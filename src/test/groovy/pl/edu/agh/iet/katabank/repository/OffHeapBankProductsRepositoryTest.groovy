@@ -0,0 +1,149 @@
+package pl.edu.agh.iet.katabank.repository
+
+import pl.edu.agh.iet.katabank.Bank
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.Account
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+
+import static org.assertj.core.api.Assertions.assertThat
+
+class OffHeapBankProductsRepositoryTest extends Specification {
+
+    private static final int STRESS_ACCOUNTS = Integer.getInteger('katabank.stress.accounts', 100000)
+
+    private final OffHeapBankProductsRepository bankProductsRepository = new OffHeapBankProductsRepository(16)
+
+    def "when customer has no accounts, empty set is returned"() {
+        expect:
+        assertThat(bankProductsRepository.findAccountsForCustomer(new Customer())).isEmpty()
+    }
+
+    def "opened accounts are returned for their owner in opening order"() {
+        given:
+        def customer = new Customer()
+        def anotherCustomer = new Customer()
+
+        when:
+        def first = bankProductsRepository.openAccount(customer)
+        bankProductsRepository.openAccount(anotherCustomer)
+        def second = bankProductsRepository.openAccount(customer)
+
+        then:
+        assertThat(bankProductsRepository.findAccountsForCustomer(customer)).containsExactly(first, second)
+        bankProductsRepository.isAccountOwnedBy(first, customer)
+        !bankProductsRepository.isAccountOwnedBy(first, anotherCustomer)
+    }
+
+    def "every view of an account shares its balance"() {
+        given:
+        def customer = new Customer()
+        def account = bankProductsRepository.openAccount(customer)
+
+        when:
+        account.deposit(100.0)
+        def view = bankProductsRepository.findAccountsForCustomer(customer).first()
+        view.withdraw(30.0)
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(70.0)
+        assertThat(view).isEqualTo(account)
+    }
+
+    def "added account is copied with its balance"() {
+        given:
+        def customer = new Customer()
+        def account = new Account(customer)
+        account.setBalance(25.0)
+
+        when:
+        def storedAccount = bankProductsRepository.addAccount(account)
+        bankProductsRepository.addAccount(account)
+
+        then:
+        bankProductsRepository.countAccounts() == 1
+        bankProductsRepository.isAccountOwnedBy(storedAccount, customer)
+        assertThat(storedAccount.getBalance()).isEqualByComparingTo(25.0)
+        assertThat(bankProductsRepository.findAccountsForCustomer(customer).first().getBalance()).isEqualByComparingTo(25.0)
+    }
+
+    def "bank refuses operations on an account copied into the repository"() {
+        given:
+        def customer = new Customer()
+        def account = new Account(customer)
+        def bank = new Bank(bankProductsRepository)
+        bankProductsRepository.addAccount(account)
+
+        when:
+        bank.deposit(customer, account, 10.0)
+
+        then:
+        RuntimeException ex = thrown()
+        ex.message == 'Customer cannot deposit money to others account.'
+        !bankProductsRepository.isAccountOwnedBy(account, customer)
+        bankProductsRepository.findAccountsForCustomer(customer).first().getBalance() == 0
+    }
+
+    def "bank works on off-heap accounts"() {
+        given:
+        def bank = new Bank(bankProductsRepository)
+        def customer = new Customer()
+        def account = bank.openAccount(customer)
+        def anotherAccount = bank.openAccount(new Customer())
+
+        when:
+        bank.deposit(customer, account, 100.0)
+        bank.transfer(customer, account, anotherAccount, 40.0)
+
+        then:
+        assertThat(account.getBalance()).isEqualByComparingTo(60.0)
+        assertThat(anotherAccount.getBalance()).isEqualByComparingTo(40.0)
+        assertThat(bank.getAccountsForCustomer(customer)).containsExactly(account)
+    }
+
+    def "concurrent transfers keep the total balance"() {
+        given:
+        def threads = Runtime.getRuntime().availableProcessors() * 2
+        def customer = new Customer()
+        def accounts = (1..64).collect { bankProductsRepository.openAccount(customer) }
+        accounts.each { it.setBalance(1000.0) }
+        def executor = Executors.newFixedThreadPool(threads)
+        def start = new CountDownLatch(1)
+
+        when:
+        threads.times {
+            executor.submit {
+                start.await()
+                def random = ThreadLocalRandom.current()
+                10000.times {
+                    try {
+                        accounts[random.nextInt(accounts.size())].transfer(accounts[random.nextInt(accounts.size())], 3.33)
+                    } catch (IllegalArgumentException ignored) {
+                    }
+                }
+            }
+        }
+        start.countDown()
+        executor.shutdown()
+        executor.awaitTermination(1, TimeUnit.MINUTES)
+
+        then:
+        assertThat(accounts.sum { it.getBalance() } as BigDecimal).isEqualByComparingTo(64000.0)
+    }
+
+    def "stress: accounts of many customers are all found"() {
+        given:
+        def customers = (1..1000).collect { new Customer() }
+
+        when:
+        STRESS_ACCOUNTS.times { bankProductsRepository.openAccount(customers[it % customers.size()]) }
+
+        then:
+        bankProductsRepository.countAccounts() == STRESS_ACCOUNTS
+        customers.sum { bankProductsRepository.findAccountsForCustomer(it).size() } == STRESS_ACCOUNTS
+    }
+}
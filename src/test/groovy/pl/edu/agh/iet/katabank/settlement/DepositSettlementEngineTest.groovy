@@ -0,0 +1,99 @@
+package pl.edu.agh.iet.katabank.settlement
+
+import pl.edu.agh.iet.katabank.Bank
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.Account
+import pl.edu.agh.iet.katabank.bankproduct.Deposit
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository
+import spock.lang.Specification
+
+import java.time.LocalDate
+
+import static org.assertj.core.api.Assertions.assertThat
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.DAYS
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS
+
+class DepositSettlementEngineTest extends Specification {
+
+    private final Bank bank = new Bank(new ConcurrentBankProductsRepository())
+    private final DepositSettlementEngine engine = DepositSettlementEngine.attachTo(bank)
+    private final Customer customer = new Customer()
+    private final InterestPolicy interestPolicy = new MonthlyInterestPolicy(10.0)
+    private Account account
+
+    def setup() {
+        account = bank.openAccount(customer)
+        account.setBalance(10000.0)
+    }
+
+    def "only deposits maturing by the business date are settled"() {
+        given:
+        def maturing = bank.openDeposit(customer, account, 100.0, new DepositDurationDetails(6, MONTHS), interestPolicy)
+        def notMaturing = bank.openDeposit(customer, account, 100.0, new DepositDurationDetails(7, MONTHS), interestPolicy)
+
+        when:
+        def report = engine.settle(maturing.getCloseDate())
+
+        then:
+        report.getSettledDeposits() == 1
+        !maturing.isOpen()
+        notMaturing.isOpen()
+        engine.countPendingDeposits() == 1
+        assertThat(account.getBalance()).isEqualByComparingTo(9905.0)
+    }
+
+    def "deposit failing to close is reported and retried without stopping the others"() {
+        given:
+        def settling = bank.openDeposit(customer, account, 100.0, new DepositDurationDetails(6, MONTHS), interestPolicy)
+        def unknownAccount = new Account(customer)
+        unknownAccount.setBalance(100.0)
+        def failing = new Deposit(unknownAccount, new DepositPayment(100.0, settling.getOpenDate()),
+                new DepositDurationDetails(6, MONTHS), interestPolicy)
+        engine.register(failing)
+
+        when:
+        def report = engine.settle(settling.getCloseDate())
+
+        then:
+        report.getSettledDeposits() == 1
+        !settling.isOpen()
+        report.getFailures().keySet() == [failing] as Set
+        report.getFailures().get(failing).message == 'Customer cannot close others deposit.'
+        failing.isOpen()
+        engine.countPendingDeposits() == 1
+        engine.settle(settling.getCloseDate()).getFailures().keySet() == [failing] as Set
+    }
+
+    def "deposits closed before settlement are skipped"() {
+        given:
+        def deposit = bank.openDeposit(customer, account, 100.0, new DepositDurationDetails(6, MONTHS), interestPolicy)
+        bank.closeDeposit(customer, deposit, deposit.getCloseDate())
+
+        when:
+        def report = engine.settle(deposit.getCloseDate())
+
+        then:
+        report.getSettledDeposits() == 0
+        report.getAlreadyClosedDeposits() == 1
+        assertThat(account.getBalance()).isEqualByComparingTo(10005.0)
+    }
+
+    def "many deposits are settled in parallel and all funds come back"() {
+        given:
+        5000.times {
+            bank.openDeposit(customer, account, 1.0, new DepositDurationDetails(1 + it % 30, DAYS), interestPolicy)
+        }
+
+        when:
+        def report = engine.settle(LocalDate.now().plusDays(30))
+
+        then:
+        report.getSettledDeposits() == 5000
+        engine.countPendingDeposits() == 0
+        assertThat(account.getBalance()).isEqualByComparingTo(10000.0)
+    }
+}
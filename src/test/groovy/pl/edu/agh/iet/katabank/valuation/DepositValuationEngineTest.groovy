@@ -0,0 +1,101 @@
+package pl.edu.agh.iet.katabank.valuation
+
+import pl.edu.agh.iet.katabank.Customer
+import pl.edu.agh.iet.katabank.bankproduct.Account
+import pl.edu.agh.iet.katabank.bankproduct.Deposit
+import pl.edu.agh.iet.katabank.bankproduct.amount.DepositPayment
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DailyInterestPolicyWithInsurance
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.InterestPolicy
+import pl.edu.agh.iet.katabank.bankproduct.interestpolicy.MonthlyInterestPolicy
+import pl.edu.agh.iet.katabank.repository.BankProductsRepository
+import pl.edu.agh.iet.katabank.repository.ConcurrentBankProductsRepository
+import spock.lang.Specification
+
+import java.time.LocalDate
+import java.util.concurrent.ForkJoinPool
+
+import static org.assertj.core.api.Assertions.assertThat
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.DAYS
+import static pl.edu.agh.iet.katabank.bankproduct.interestpolicy.DepositDurationDetails.DurationType.MONTHS
+
+class DepositValuationEngineTest extends Specification {
+
+    private static final LocalDate OPEN_DATE = LocalDate.of(2018, 1, 15)
+
+    private final BankProductsRepository repository = new ConcurrentBankProductsRepository()
+    private final InterestPolicy monthlyPolicy = new MonthlyInterestPolicy(12.0)
+    private final InterestPolicy dailyPolicy = new DailyInterestPolicyWithInsurance(3.65, 0.0)
+
+    def "accrued and projected interest are grouped by policy type and maturity"() {
+        given:
+        addDeposit(100.00, new DepositDurationDetails(12, MONTHS), monthlyPolicy)
+        addDeposit(100.00, new DepositDurationDetails(12, MONTHS), monthlyPolicy)
+        addDeposit(1000.00, new DepositDurationDetails(200, DAYS), dailyPolicy)
+
+        when:
+        def report = new DepositValuationEngine(repository).valuate(OPEN_DATE.plusDays(100))
+
+        then:
+        report.getDepositCount() == 3
+        report.getGroups().size() == 2
+        def monthly = report.getGroups()[new ValuationGroup(MonthlyInterestPolicy, MaturityBucket.UP_TO_1_YEAR)]
+        monthly.getPaymentCount() == 2
+        assertThat(monthly.getPrincipal()).isEqualByComparingTo(200.00)
+        assertThat(monthly.getAccruedInterest()).isEqualByComparingTo(6.00)
+        assertThat(monthly.getProjectedInterest()).isEqualByComparingTo(24.00)
+        def daily = report.getGroups()[new ValuationGroup(DailyInterestPolicyWithInsurance, MaturityBucket.UP_TO_6_MONTHS)]
+        assertThat(daily.getAccruedInterest()).isEqualByComparingTo(10.00)
+        assertThat(daily.getProjectedInterest()).isEqualByComparingTo(20.00)
+        assertThat(report.getTotals().getAccruedInterest()).isEqualByComparingTo(16.00)
+    }
+
+    def "matured deposits have accrued all projected interest"() {
+        given:
+        addDeposit(100.00, new DepositDurationDetails(6, MONTHS), monthlyPolicy)
+
+        when:
+        def report = new DepositValuationEngine(repository).valuate(OPEN_DATE.plusYears(1))
+
+        then:
+        def matured = report.getGroups()[new ValuationGroup(MonthlyInterestPolicy, MaturityBucket.MATURED)]
+        assertThat(matured.getAccruedInterest()).isEqualByComparingTo(matured.getProjectedInterest())
+        assertThat(matured.getAccruedInterest()).isEqualByComparingTo(6.00)
+    }
+
+    def "closed deposits are not valued"() {
+        given:
+        def deposit = addDeposit(100.00, new DepositDurationDetails(6, MONTHS), monthlyPolicy)
+        deposit.closeDeposit(OPEN_DATE.plusMonths(6))
+
+        when:
+        def report = new DepositValuationEngine(repository).valuate(OPEN_DATE.plusMonths(6))
+
+        then:
+        report.getDepositCount() == 0
+        report.getGroups().isEmpty()
+    }
+
+    def "parallel valuation gives the same totals as the deposits themselves"() {
+        given:
+        def deposits = (1..500).collect {
+            def deposit = addDeposit(new BigDecimal(it), new DepositDurationDetails(6 + it % 24, MONTHS), it % 2 ? monthlyPolicy : dailyPolicy)
+            deposit.addPayment(new DepositPayment(new BigDecimal(it), OPEN_DATE.plusDays(it % 30)), monthlyPolicy)
+            deposit
+        }
+        def valuationDate = OPEN_DATE.plusMonths(9)
+
+        when:
+        def report = new DepositValuationEngine(repository, new ForkJoinPool(4)).valuate(valuationDate)
+
+        then:
+        report.getTotals().getPaymentCount() == 1000
+        report.getTotals().getAccruedInterest() == deposits.sum { it.calculateAccruedInterest(valuationDate) }
+    }
+
+    private Deposit addDeposit(BigDecimal amount, DepositDurationDetails durationDetails, InterestPolicy policy) {
+        def deposit = new Deposit(new Account(new Customer()), new DepositPayment(amount, OPEN_DATE), durationDetails, policy)
+        repository.addDeposit(deposit)
+        deposit
+    }
+}
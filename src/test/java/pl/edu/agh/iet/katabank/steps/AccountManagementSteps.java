@@ -32,12 +32,10 @@ public class AccountManagementSteps implements En {
 
         Given("^a customer has two accounts open$", () -> {
             // create first account for customer
-            firstAccount = new Account(customer);
-            bankProductsRepository.addAccount(firstAccount);
+            firstAccount = bankProductsRepository.addAccount(new Account(customer));
 
             // create second account for customer
-            secondAccount = new Account(customer);
-            bankProductsRepository.addAccount(secondAccount);
+            secondAccount = bankProductsRepository.addAccount(new Account(customer));
         });
 
         When("^he lists his accounts$",
@@ -50,8 +48,7 @@ public class AccountManagementSteps implements En {
         Given("^a customer wants to open an account$", () -> customer = new Customer());
 
         When("^his account is created$", () -> {
-            firstAccount = new Account(customer);
-            bankProductsRepository.addAccount(firstAccount);
+            firstAccount = bankProductsRepository.addAccount(new Account(customer));
         });
 
         Then("^there is a new account on his account list$", () -> {
@@ -63,9 +60,9 @@ public class AccountManagementSteps implements En {
                 assertThat(firstAccount.getBalance()).isEqualByComparingTo(new BigDecimal(balance)));
 
         Given("^balance on the account is (\\d+)$", (Integer initialBalance) -> {
-            firstAccount = new Account(customer);
-            firstAccount.setBalance(new BigDecimal(initialBalance));
-            bankProductsRepository.addAccount(firstAccount);
+            Account account = new Account(customer);
+            account.setBalance(new BigDecimal(initialBalance));
+            firstAccount = bankProductsRepository.addAccount(account);
         });
 
         When("^customer withdraws (\\d+) from this account$",
@@ -78,9 +75,9 @@ public class AccountManagementSteps implements En {
                 assertThat(firstAccount.getBalance()).isEqualByComparingTo(new BigDecimal(balance)));
 
         Given("^balance on account A is (\\d+)$", (Integer balance) -> {
-            firstAccount = new Account(customer);
-            firstAccount.setBalance(new BigDecimal(balance));
-            bankProductsRepository.addAccount(firstAccount);
+            Account account = new Account(customer);
+            account.setBalance(new BigDecimal(balance));
+            firstAccount = bankProductsRepository.addAccount(account);
         });
 
         And("^balance on account B is (\\d+)$", (Integer balance) -> {
@@ -45,8 +45,7 @@ public class DepositManagementSteps implements En {
             bankProductsRepository = new InMemoryBankProductsRepository();
             bank = new Bank(bankProductsRepository);
             customer = new Customer();
-            account = new Account(customer);
-            bankProductsRepository.addAccount(account);
+            account = bankProductsRepository.addAccount(new Account(customer));
         });
 
         Given("^there is a default interest policy and deposit duration$", () -> {